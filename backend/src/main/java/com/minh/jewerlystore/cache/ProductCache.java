@@ -0,0 +1,121 @@
+package com.minh.jewerlystore.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.event.ProductsImportedEvent;
+import com.minh.jewerlystore.mapper.ProductMapper;
+import com.minh.jewerlystore.store.ColumnarProductStore;
+
+/**
+ * Read-through cache for product lookups by id and by category. Entries are refreshed or
+ * dropped after every committed product write. Products are copied on the way in and out
+ * so callers can never modify a cached instance.
+ *
+ * Every write also bumps a generation counter. A reader takes the generation before loading
+ * from the database and passes it back with the result; if a write landed in between, the
+ * result may predate it and is not cached.
+ *
+ * Lookups by id only reach this cache until the {@link ColumnarProductStore} has loaded the
+ * catalog. From then on the by-id entries are dropped and writes only invalidate, so the heap
+ * does not keep a second copy of products the store already holds; should the store be reloaded,
+ * the cache fills up again from the database in the meantime.
+ */
+@Component
+public class ProductCache {
+    private final LruCache<Long, Product> byId;
+    private final LruCache<String, List<Product>> byCategory;
+    private final ColumnarProductStore productStore;
+    private long generation;
+    private boolean byIdRetired;
+
+    public ProductCache(ColumnarProductStore productStore,
+                        @Value("${catalog.cache.max-size:10000}") int maxSize,
+                        @Value("${catalog.cache.category-max-size:200}") int categoryMaxSize,
+                        @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.productStore = productStore;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.byId = new LruCache<>(maxSize, ttl);
+        this.byCategory = new LruCache<>(categoryMaxSize, ttl);
+    }
+
+    public Product getById(Long id) {
+        Product product = byId.get(id);
+        return product == null ? null : ProductMapper.copyOf(product);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void putById(Product product, long loadedAtGeneration) {
+        if (loadedAtGeneration == generation) {
+            byId.put(product.getId(), ProductMapper.copyOf(product));
+        }
+    }
+
+    public List<Product> getByCategory(String category) {
+        List<Product> products = byCategory.get(category);
+        return products == null ? null : copyAll(products);
+    }
+
+    public synchronized void putByCategory(String category, List<Product> products, long loadedAtGeneration) {
+        if (loadedAtGeneration == generation) {
+            byCategory.put(category, copyAll(products));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation++;
+        Long id = event.getProductId();
+        Product product = event.getProduct();
+        boolean storeReady = productStore.isReady();
+        if (storeReady && !byIdRetired) {
+            byId.clear();
+        }
+        byIdRetired = storeReady;
+        // Once the store is ready, still invalidate: a read that started before may have put a copy
+        if (product == null || storeReady) {
+            byId.invalidate(id);
+        } else {
+            byId.put(id, ProductMapper.copyOf(product));
+        }
+        // Drop the lists the product was in and the list it belongs to now
+        byCategory.invalidateIf((category, products) ->
+                (product != null && category.equals(product.getCategory()))
+                        || products.stream().anyMatch(p -> id.equals(p.getId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductsImported(ProductsImportedEvent event) {
+        generation++;
+        Set<String> categories = event.getProducts().stream()
+                .map(Product::getCategory)
+                .collect(Collectors.toSet());
+        byCategory.invalidateIf((category, products) -> categories.contains(category));
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("byId", byId.stats());
+        stats.put("byCategory", byCategory.stats());
+        return stats;
+    }
+
+    private static List<Product> copyAll(List<Product> products) {
+        return products.stream()
+                .map(ProductMapper::copyOf)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package com.minh.jewerlystore.cache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.event.ProductsImportedEvent;
+
+/**
+ * Caches the product ids returned for a filtered search, keyed by the normalized filters, sort
+ * and limit. Only ids are stored; callers load the products through {@link ProductCache}, so an
+ * entry stays small and never serves stale product fields.
+ *
+ * After a product write, an entry is dropped if the product is in its result or the product as
+ * written now matches its filters. Every other entry is unaffected by the write and survives.
+ * Results loaded across a write are not cached, as in {@link ProductCache}.
+ */
+@Component
+public class SearchResultCache {
+    private final LruCache<SearchKey, List<Long>> results;
+    private long generation;
+
+    public SearchResultCache(@Value("${catalog.search-cache.max-size:1000}") int maxSize,
+                             @Value("${catalog.search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.results = new LruCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public List<Long> get(SearchKey key) {
+        return results.get(key);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(SearchKey key, List<Long> ids, long loadedAtGeneration) {
+        if (loadedAtGeneration == generation) {
+            results.put(key, List.copyOf(ids));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        // Stock is not a search filter, and product fields are never cached here
+        if (event.getType() == ProductChangeType.STOCK_CHANGED) {
+            return;
+        }
+        generation++;
+        Long id = event.getProductId();
+        Product product = event.getProduct();
+        results.invalidateIf((key, ids) -> ids.contains(id) || (product != null && key.matches(product)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductsImported(ProductsImportedEvent event) {
+        generation++;
+        results.invalidateIf((key, ids) -> event.getProducts().stream().anyMatch(key::matches));
+    }
+
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    /**
+     * Search parameters in canonical form: blank filters become null, prices drop trailing zeros
+     * and the sort direction is lowercased, so equivalent requests share one entry.
+     */
+    public record SearchKey(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand,
+                            String color, String sortBy, String sortDir, int limit) {
+
+        public static SearchKey of(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand,
+                                   String color, String sortBy, String sortDir, int limit) {
+            return new SearchKey(blankToNull(category), normalize(minPrice), normalize(maxPrice),
+                    blankToNull(brand), blankToNull(color), sortBy, sortDir.toLowerCase(Locale.ROOT), limit);
+        }
+
+        public boolean matches(Product product) {
+            return (category == null || category.equals(product.getCategory()))
+                    && (brand == null || brand.equals(product.getBrand()))
+                    && (color == null || color.equals(product.getColor()))
+                    && (minPrice == null || product.getPrice().compareTo(minPrice) >= 0)
+                    && (maxPrice == null || product.getPrice().compareTo(maxPrice) <= 0);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+
+        private static BigDecimal normalize(BigDecimal price) {
+            return price == null ? null : price.stripTrailingZeros();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.minh.jewerlystore.cart;
+
+/**
+ * Changes to one cart, applied by {@link CartStore#update} while it holds the cart's lock.
+ * Every operation is a map lookup, by product id or by cart item id.
+ */
+public interface CartEditor {
+    /**
+     * Whether the user has a cart, either in the database or created since.
+     */
+    boolean exists();
+
+    /**
+     * Creates the cart if the user has none yet.
+     */
+    void create();
+
+    /**
+     * @return the line for the product, null if it is not in the cart
+     */
+    CartLine line(Long productId);
+
+    /**
+     * @return the line with the cart item id, null if there is none
+     */
+    CartLine item(Long itemId);
+
+    /**
+     * Sets the product's quantity; a new line gets its cart item id here.
+     */
+    void put(Long productId, int quantity);
+
+    boolean remove(Long productId);
+
+    void clear();
+}
@@ -0,0 +1,9 @@
+package com.minh.jewerlystore.cart;
+
+/**
+ * One product in a cart.
+ *
+ * @param itemId id of the cart_items row; assigned when the line is created, before it is written
+ */
+public record CartLine(Long itemId, Long productId, int quantity) {
+}
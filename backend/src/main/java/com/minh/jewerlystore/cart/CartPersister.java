@@ -0,0 +1,186 @@
+package com.minh.jewerlystore.cart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.minh.jewerlystore.entity.Cart;
+import com.minh.jewerlystore.entity.CartItem;
+import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.repository.CartItemRepository;
+import com.minh.jewerlystore.repository.CartRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads carts into {@link CartSnapshot}s and writes snapshots back to the {@code carts} and
+ * {@code cart_items} tables for {@link CartStore}.
+ */
+@Component
+@Slf4j
+public class CartPersister {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String ITEM_ID_SEQUENCE = "cart_items_seq";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartPersister(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                         EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return the user's stored cart, null if the user has none
+     */
+    public CartSnapshot load(User user) {
+        return transactionTemplate.execute(status -> cartRepository.findByUser(user)
+                .map(cart -> {
+                    List<CartLine> lines = new ArrayList<>(cart.getItems().size());
+                    for (CartItem item : cart.getItems()) {
+                        lines.add(new CartLine(item.getId(), item.getProduct().getId(), item.getQuantity()));
+                    }
+                    return new CartSnapshot(user.getId(), cart.getId(), lines, 0);
+                })
+                .orElse(null));
+    }
+
+    /**
+     * Writes the carts in one transaction. If that fails the carts are retried one transaction
+     * each, so one bad cart does not hold back the rest; a cart that loses an optimistic lock race
+     * to another writer is reloaded and written again, up to {@link #MAX_ATTEMPTS} times.
+     *
+     * @return what was written, by user id; carts that could not be written are left out
+     */
+    public Map<Long, Saved> saveAll(List<CartSnapshot> carts) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Map<Long, Saved> saved = new HashMap<>();
+                for (CartSnapshot cart : carts) {
+                    saved.put(cart.userId(), save(cart));
+                }
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Writing {} carts in one batch failed, retrying one by one", carts.size(), e);
+        }
+        Map<Long, Saved> saved = new HashMap<>();
+        for (CartSnapshot cart : carts) {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                try {
+                    saved.put(cart.userId(), transactionTemplate.execute(status -> save(cart)));
+                    break;
+                } catch (OptimisticLockingFailureException e) {
+                    log.debug("Cart of user {} changed while being written, attempt {}", cart.userId(), attempt);
+                    if (attempt == MAX_ATTEMPTS) {
+                        log.warn("Writing the cart of user {} kept conflicting, giving up for now", cart.userId(), e);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Writing the cart of user {} failed", cart.userId(), e);
+                    break;
+                }
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Reserves a block of {@link CartItem#ID_BLOCK_SIZE} cart item ids. A sequence value {@code v}
+     * stands for the ids up to and including {@code v}, the way Hibernate's pooled optimizer reads
+     * it, so blocks handed out here never overlap ids Hibernate generates from the same sequence.
+     */
+    public ItemIdBlock reserveItemIds() {
+        Long last = transactionTemplate.execute(status -> ((Number) entityManager
+                .createNativeQuery(sequenceNextValSql())
+                .getSingleResult()).longValue());
+        return new ItemIdBlock(Math.max(1, last - CartItem.ID_BLOCK_SIZE + 1), last);
+    }
+
+    private String sequenceNextValSql() {
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        return dialect.getSequenceSupport().getSequenceNextValString(ITEM_ID_SEQUENCE);
+    }
+
+    /**
+     * Brings the stored cart in line with the snapshot, matching lines by item id. Lines this store
+     * wrote before and no longer has are deleted and new ones inserted under the id they were given
+     * in memory; a line present on both sides is moved by the difference between the snapshot and
+     * what was last written, with an in-place increment, so a concurrent change to the same line by
+     * another writer is added to rather than overwritten. Lines added by other writers are kept.
+     */
+    private Saved save(CartSnapshot snapshot) {
+        Cart cart = snapshot.cartId() == null ? null : cartRepository.findById(snapshot.cartId()).orElse(null);
+        if (cart == null) {
+            cartRepository.insertIfAbsent(snapshot.userId());
+            Long cartId = cartRepository.findIdByUserId(snapshot.userId()).orElseThrow();
+            cart = cartRepository.findById(cartId).orElseThrow();
+        }
+
+        Map<Long, CartItem> existing = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            existing.put(item.getId(), item);
+        }
+        Set<Long> kept = new HashSet<>();
+        snapshot.lines().forEach(line -> kept.add(line.itemId()));
+        cart.getItems().removeIf(item -> snapshot.written().containsKey(item.getId()) && !kept.contains(item.getId()));
+        // Deletes first; deleting a line another writer just changed fails its version check
+        cartRepository.saveAndFlush(cart);
+
+        boolean decreased = false;
+        for (CartLine line : snapshot.lines()) {
+            if (existing.containsKey(line.itemId())) {
+                int delta = line.quantity() - snapshot.written().getOrDefault(line.itemId(), 0);
+                if (delta != 0) {
+                    cartItemRepository.incrementQuantity(line.itemId(), delta);
+                    decreased |= delta < 0;
+                }
+            } else if (!snapshot.written().containsKey(line.itemId())) {
+                cartItemRepository.insertLine(line.itemId(), cart.getId(), line.productId(), line.quantity());
+            }
+            // Otherwise another writer deleted the line; the store decides whether to bring it back
+        }
+        if (decreased) {
+            cartItemRepository.deleteEmptyLines(cart.getId());
+        }
+
+        // Read back the merged result; the inserts and increments bypassed the loaded entities
+        Long cartId = cart.getId();
+        entityManager.clear();
+        Cart saved = cartRepository.findById(cartId).orElseThrow();
+        List<CartLine> lines = new ArrayList<>(saved.getItems().size());
+        for (CartItem item : saved.getItems()) {
+            lines.add(new CartLine(item.getId(), item.getProduct().getId(), item.getQuantity()));
+        }
+        return new Saved(cartId, lines);
+    }
+
+    /**
+     * @param lines the cart's lines in the database after the write, including changes made by
+     *              other writers
+     */
+    public record Saved(Long cartId, List<CartLine> lines) {
+    }
+
+    /**
+     * Cart item ids {@code first} to {@code last}, both included.
+     */
+    public record ItemIdBlock(long first, long last) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.minh.jewerlystore.cart;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a cart taken under its lock.
+ *
+ * @param cartId  id of the carts row, null until the cart has been written to the database
+ * @param version counts changes to the cart; a write-behind flush records the version it wrote
+ * @param written quantity per cart item id as of the last load or write; a flush writes the difference
+ *                from it rather than the absolute quantity, so changes made by other writers are kept
+ */
+public record CartSnapshot(Long userId, Long cartId, List<CartLine> lines, long version, Map<Long, Integer> written) {
+
+    public CartSnapshot(Long userId, Long cartId, List<CartLine> lines, long version) {
+        this(userId, cartId, lines, version, Map.of());
+    }
+}
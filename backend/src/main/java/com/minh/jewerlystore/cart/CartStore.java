@@ -0,0 +1,382 @@
+package com.minh.jewerlystore.cart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.cache.SingleFlight;
+import com.minh.jewerlystore.entity.User;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the carts of active users in memory and writes changes to the database behind the
+ * request.
+ *
+ * A cart is loaded on first use and from then on read and changed in memory, with its lines keyed
+ * by product id. A new line gets its cart item id straight away, from a block reserved from the
+ * item id sequence, so the id clients use to address it never changes when it is written. A change
+ * marks the cart dirty; a background flush writes dirty carts in batches and marks them clean only
+ * if they did not change while being written. Carts that stay clean and untouched for the idle
+ * timeout are dropped and loaded again on next use. Dirty carts are written on shutdown, but
+ * changes made since the last flush are lost if the process dies.
+ *
+ * A flush writes each line as the change since the last write, so quantity changes made by
+ * another writer of the same cart in the meantime are merged rather than overwritten, and the
+ * merged result is read back into memory. A cart in memory is only reloaded after eviction, so
+ * other writers' changes show up here once this instance writes the cart again.
+ */
+@Component
+@Slf4j
+public class CartStore {
+    private final ConcurrentMap<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<Long, CartState> loads = new SingleFlight<>();
+    private final CartPersister persister;
+    private final long flushMillis;
+    private final int batchSize;
+    private final long idleMillis;
+    private final Object itemIdLock = new Object();
+    private long nextItemId;
+    private long lastItemId = -1;
+    private ScheduledExecutorService scheduler;
+
+    public CartStore(CartPersister persister,
+                     @Value("${cart.store.flush-millis:1000}") long flushMillis,
+                     @Value("${cart.store.batch-size:200}") int batchSize,
+                     @Value("${cart.store.idle-minutes:30}") long idleMinutes) {
+        this.persister = persister;
+        this.flushMillis = flushMillis;
+        this.batchSize = batchSize;
+        this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("cart-flush")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        // Keep going while batches make progress; carts that keep failing are logged by the persister
+        int before;
+        do {
+            before = dirty.size();
+            flush();
+        } while (!dirty.isEmpty() && dirty.size() < before);
+        if (!dirty.isEmpty()) {
+            log.error("Shutting down with {} carts not written to the database", dirty.size());
+        }
+    }
+
+    /**
+     * @return the user's cart; a user without a cart gets an empty one that does not exist yet
+     */
+    public CartSnapshot read(User user) {
+        return update(user, cart -> { });
+    }
+
+    /**
+     * Applies a change to the user's cart while holding its lock. A change that throws must do so
+     * before it edits the cart.
+     */
+    public CartSnapshot update(User user, Consumer<CartEditor> change) {
+        while (true) {
+            CartState state = state(user);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                long before = state.version;
+                change.accept(state);
+                state.lastAccess = System.currentTimeMillis();
+                if (state.version != before) {
+                    dirty.add(state.userId);
+                }
+                return state.snapshot();
+            }
+        }
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    private CartState state(User user) {
+        Long userId = user.getId();
+        CartState state = carts.get(userId);
+        if (state != null) {
+            return state;
+        }
+        return loads.load(userId, () -> {
+            CartState current = carts.get(userId);
+            if (current != null) {
+                return current;
+            }
+            CartSnapshot stored = persister.load(user);
+            CartState loaded = new CartState(userId, stored, this::nextItemId);
+            CartState raced = carts.putIfAbsent(userId, loaded);
+            return raced != null ? raced : loaded;
+        });
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Cart flush failed", e);
+        }
+    }
+
+    synchronized void flush() {
+        evictIdle();
+        while (!dirty.isEmpty()) {
+            List<CartSnapshot> batch = new ArrayList<>(Math.min(batchSize, dirty.size()));
+            for (Iterator<Long> it = dirty.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+                Long userId = it.next();
+                it.remove();
+                CartState state = carts.get(userId);
+                if (state != null) {
+                    synchronized (state) {
+                        batch.add(state.snapshot());
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<Long, CartPersister.Saved> saved;
+            try {
+                saved = persister.saveAll(batch);
+            } catch (RuntimeException e) {
+                log.warn("Writing {} carts failed, will retry", batch.size(), e);
+                batch.forEach(snapshot -> dirty.add(snapshot.userId()));
+                return;
+            }
+            boolean failed = false;
+            for (CartSnapshot snapshot : batch) {
+                CartPersister.Saved result = saved.get(snapshot.userId());
+                if (result == null) {
+                    dirty.add(snapshot.userId());
+                    failed = true;
+                    continue;
+                }
+                CartState state = carts.get(snapshot.userId());
+                synchronized (state) {
+                    state.written(snapshot, result);
+                    if (state.version != state.writtenVersion) {
+                        dirty.add(snapshot.userId());
+                    }
+                }
+            }
+            if (failed) {
+                // Leave the failed carts for the next flush rather than spinning on them now
+                return;
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        for (CartState state : carts.values()) {
+            synchronized (state) {
+                if (state.lastAccess < cutoff && state.writtenVersion == state.version
+                        && !dirty.contains(state.userId)) {
+                    state.evicted = true;
+                    carts.remove(state.userId, state);
+                }
+            }
+        }
+    }
+
+    private long nextItemId() {
+        synchronized (itemIdLock) {
+            if (nextItemId > lastItemId) {
+                CartPersister.ItemIdBlock block = persister.reserveItemIds();
+                nextItemId = block.first();
+                lastItemId = block.last();
+            }
+            return nextItemId++;
+        }
+    }
+
+    /**
+     * One cart in memory. Guarded by its own monitor.
+     */
+    private static final class CartState implements CartEditor {
+        private final Long userId;
+        private final LongSupplier itemIds;
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        // Item id -> product id, for the endpoints that address a line by its item id
+        private final Map<Long, Long> productsByItem = new HashMap<>();
+        // Quantity per item id as the database last had it
+        private final Map<Long, Integer> written = new HashMap<>();
+        private Long cartId;
+        private boolean exists;
+        private long version;
+        private long writtenVersion;
+        private long lastAccess = System.currentTimeMillis();
+        private boolean evicted;
+
+        private CartState(Long userId, CartSnapshot stored, LongSupplier itemIds) {
+            this.userId = userId;
+            this.itemIds = itemIds;
+            if (stored != null) {
+                cartId = stored.cartId();
+                exists = true;
+                stored.lines().forEach(line -> {
+                    putLine(line);
+                    written.put(line.itemId(), line.quantity());
+                });
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return exists;
+        }
+
+        @Override
+        public void create() {
+            if (!exists) {
+                exists = true;
+                version++;
+            }
+        }
+
+        @Override
+        public CartLine line(Long productId) {
+            return lines.get(productId);
+        }
+
+        @Override
+        public CartLine item(Long itemId) {
+            Long productId = productsByItem.get(itemId);
+            return productId == null ? null : lines.get(productId);
+        }
+
+        @Override
+        public void put(Long productId, int quantity) {
+            CartLine line = lines.get(productId);
+            if (line == null) {
+                putLine(new CartLine(itemIds.getAsLong(), productId, quantity));
+                version++;
+            } else if (line.quantity() != quantity) {
+                lines.put(productId, new CartLine(line.itemId(), productId, quantity));
+                version++;
+            }
+        }
+
+        @Override
+        public boolean remove(Long productId) {
+            CartLine line = lines.remove(productId);
+            if (line == null) {
+                return false;
+            }
+            productsByItem.remove(line.itemId());
+            version++;
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            if (!lines.isEmpty()) {
+                lines.clear();
+                productsByItem.clear();
+                version++;
+            }
+        }
+
+        private void putLine(CartLine line) {
+            CartLine previous = lines.put(line.productId(), line);
+            if (previous != null && !previous.itemId().equals(line.itemId())) {
+                productsByItem.remove(previous.itemId());
+            }
+            productsByItem.put(line.itemId(), line.productId());
+        }
+
+        private CartSnapshot snapshot() {
+            return new CartSnapshot(userId, cartId, List.copyOf(lines.values()), version, Map.copyOf(written));
+        }
+
+        /**
+         * Takes on the database's view of the cart after a write. The stored lines may include
+         * changes by other writers; changes made here since the snapshot are kept on top of them.
+         */
+        private void written(CartSnapshot snapshot, CartPersister.Saved saved) {
+            cartId = saved.cartId();
+            Map<Long, Integer> snapshotQuantities = new HashMap<>();
+            snapshot.lines().forEach(line -> snapshotQuantities.put(line.itemId(), line.quantity()));
+            Map<Long, CartLine> stored = new LinkedHashMap<>();
+            saved.lines().forEach(line -> stored.put(line.itemId(), line));
+
+            Set<Long> known = new HashSet<>(snapshotQuantities.keySet());
+            known.addAll(snapshot.written().keySet());
+            written.clear();
+            stored.values().forEach(line -> written.put(line.itemId(), line.quantity()));
+
+            for (CartLine line : List.copyOf(lines.values())) {
+                CartLine db = stored.get(line.itemId());
+                int local = line.quantity() - snapshotQuantities.getOrDefault(line.itemId(), 0);
+                int merged = (db == null ? 0 : db.quantity()) + local;
+                if (merged > 0) {
+                    lines.put(line.productId(), new CartLine(line.itemId(), line.productId(), merged));
+                } else {
+                    lines.remove(line.productId());
+                    productsByItem.remove(line.itemId());
+                    if (db != null) {
+                        // Other writers took the line to zero; it still has to be deleted from the database
+                        version++;
+                    }
+                }
+            }
+            for (CartLine db : stored.values()) {
+                if (productsByItem.containsKey(db.itemId()) || known.contains(db.itemId())) {
+                    // Already merged above, or removed here since the snapshot and deleted by the next flush
+                    continue;
+                }
+                CartLine ours = lines.get(db.productId());
+                if (ours == null) {
+                    putLine(db);
+                } else {
+                    // Another writer added the same product as a separate line; fold it into ours
+                    // and let the next flush delete it
+                    lines.put(db.productId(),
+                            new CartLine(ours.itemId(), db.productId(), ours.quantity() + db.quantity()));
+                    version++;
+                }
+            }
+            writtenVersion = Math.max(writtenVersion, snapshot.version());
+        }
+    }
+}
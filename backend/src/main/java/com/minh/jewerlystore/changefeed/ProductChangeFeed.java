@@ -0,0 +1,125 @@
+package com.minh.jewerlystore.changefeed;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.ProductChange;
+import com.minh.jewerlystore.entity.ProductChangeHead;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.event.ProductsImportedEvent;
+import com.minh.jewerlystore.repository.ProductChangeHeadRepository;
+import com.minh.jewerlystore.repository.ProductChangeRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records every product write as a numbered change so clients can sync with "what changed
+ * since N" instead of downloading the whole catalog.
+ *
+ * The change row is written with a plain {@code @EventListener}, in the transaction of the product
+ * write, so it commits or rolls back with it. It gets its sequence number only after that commit,
+ * in a separate transaction that holds the lock on {@link ProductChangeHead}: numbers are handed out
+ * by one transaction at a time and each batch commits before the next is numbered, so a reader
+ * that has seen number N has already seen every number below it. Changes left unnumbered because
+ * the instance stopped right after a commit are numbered with the next write.
+ */
+@Component
+@Slf4j
+public class ProductChangeFeed {
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductChangeHeadRepository productChangeHeadRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductChangeFeed(ProductChangeRepository productChangeRepository,
+                             ProductChangeHeadRepository productChangeHeadRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.productChangeRepository = productChangeRepository;
+        this.productChangeHeadRepository = productChangeHeadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Called after the write's commit, while its transaction is still bound to the thread
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Ahead of the listeners below, which only run this early when there is no transaction
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        productChangeRepository.save(new ProductChange(null, null, event.getProductId(), event.getType(), LocalDateTime.now()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsImported(ProductsImportedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductChange> changes = new ArrayList<>(event.getProducts().size());
+        for (Product product : event.getProducts()) {
+            changes.add(new ProductChange(null, null, product.getId(), ProductChangeType.CREATED, now));
+        }
+        productChangeRepository.saveAll(changes);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChangeCommitted(ProductChangedEvent event) {
+        sequencePending();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImportCommitted(ProductsImportedEvent event) {
+        sequencePending();
+    }
+
+    /**
+     * Numbers every committed change that has no sequence number yet, in the order they were
+     * recorded.
+     */
+    public void sequencePending() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                ProductChangeHead head = lockHead();
+                long last = head.getLastSequence();
+                for (ProductChange change : productChangeRepository.findBySequenceIsNullOrderByIdAsc()) {
+                    change.setSequence(++last);
+                }
+                head.setLastSequence(last);
+            });
+        } catch (RuntimeException e) {
+            // The write itself is committed; its change is numbered with the next one
+            log.warn("Numbering product changes failed", e);
+        }
+    }
+
+    private ProductChangeHead lockHead() {
+        return productChangeHeadRepository.lock().orElseGet(() -> {
+            productChangeHeadRepository.insertIfAbsent();
+            return productChangeHeadRepository.lock().orElseThrow();
+        });
+    }
+
+    /**
+     * @return changes numbered after {@code since}, oldest first, at most {@code limit}
+     */
+    public List<ProductChange> read(long since, int limit) {
+        return productChangeRepository.findBySequenceGreaterThanOrderBySequenceAsc(since, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Sequence number of the latest change, 0 when there is none. A client takes this before a
+     * full download and then syncs from it.
+     */
+    public long head() {
+        return productChangeRepository.findLastSequence();
+    }
+}
@@ -2,8 +2,15 @@ package com.minh.jewerlystore.config;
 
 public class AppConstants {
     public static final String PAGE_NUMBER = "0";
-    public static final String PAGE_SIZE = "12 ";
+    public static final String PAGE_SIZE = "12";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int SEARCH_RESULT_LIMIT = 50;
+    public static final int MAX_BATCH_IDS = 100;
+    public static final String CHANGES_PAGE_SIZE = "500";
+    public static final int MAX_CHANGES_PAGE_SIZE = 1000;
+    public static final String SUGGEST_LIMIT = "8";
+    public static final int MAX_SUGGEST_LIMIT = 20;
     public static final String SORT_CATEGORIES_BY = "categoryId";
-    public static final String SORT_PRODUCTS_BY = "productId";
+    public static final String SORT_PRODUCTS_BY = "id";
     public static final String SORT_DIR = "asc";
 }
@@ -7,14 +7,17 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest;
 import com.minh.jewerlystore.payload.response.CartResponse;
 import com.minh.jewerlystore.security.services.UserDetailsImpl;
 import com.minh.jewerlystore.service.CartService;
@@ -68,6 +71,15 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
 
+    @PatchMapping
+    public ResponseEntity<CartResponse> applyOperations(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestBody CartOperationsRequest request) {
+        User user = userService.getUserById(userDetails.getId());
+        CartResponse cart = cartService.applyOperations(user, request.getOperations());
+        return ResponseEntity.ok(cart);
+    }
+
     @DeleteMapping("/clear")
     public ResponseEntity<Void> clearCart(@AuthenticationPrincipal UserDetailsImpl userDetails) {
         User user = userService.getUserById(userDetails.getId());
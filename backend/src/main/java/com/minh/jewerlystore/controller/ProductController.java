@@ -1,15 +1,47 @@
 package com.minh.jewerlystore.controller;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.minh.jewerlystore.cache.CacheStats;
+import com.minh.jewerlystore.cache.ProductCache;
+import com.minh.jewerlystore.cache.SearchResultCache;
+import com.minh.jewerlystore.config.AppConstants;
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.live.ProductUpdateBroadcaster;
+import com.minh.jewerlystore.mapper.ProductMapper;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.dto.ProductLiveUpdateDTO;
+import com.minh.jewerlystore.payload.request.AvailabilityRequest;
+import com.minh.jewerlystore.payload.response.AvailabilityResponse;
+import com.minh.jewerlystore.payload.response.FacetSearchResponse;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
+import com.minh.jewerlystore.payload.response.ProductChangesResponse;
+import com.minh.jewerlystore.payload.response.ProductImportResponse;
+import com.minh.jewerlystore.payload.response.ProductPageResponse;
+import com.minh.jewerlystore.service.ProductImportService;
 import com.minh.jewerlystore.service.ProductService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -18,17 +50,80 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final ProductCache productCache;
+    private final SearchResultCache searchResultCache;
+    private final ProductImportService productImportService;
+    private final ProductUpdateBroadcaster productUpdateBroadcaster;
+
+    @Value("${catalog.export.timeout:10m}")
+    private Duration exportTimeout;
 
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<ProductPageResponse> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) Integer size,
+            @RequestParam(defaultValue = AppConstants.SORT_PRODUCTS_BY) String sortBy,
+            @RequestParam(defaultValue = AppConstants.SORT_DIR) String sortDir) {
+        ProductPageResponse page = productService.getProducts(cursor, size, sortBy, sortDir);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ProductETags.ofSummaries(page.getContent(), page.getNextCursor()))
+                .body(page);
+    }
+
+    // GET /api/products?ids=1,2,3 lets a cart or wishlist page load all its products in one request
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam List<Long> ids) {
+        ProductBatchResponse batch = productService.getProductsByIds(ids);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ProductETags.ofDetails(batch.getProducts(), batch.getMissing()))
+                .body(batch);
+    }
+
+    // Live price and stock of the given products, pushed as they change instead of polled
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUpdates(@RequestParam List<Long> ids) {
+        // Only existing products are watched; the current state goes out as the first events
+        ProductBatchResponse current = productService.getProductsByIds(ids);
+        List<ProductLiveUpdateDTO> initial = current.getProducts().stream()
+                .map(product -> new ProductLiveUpdateDTO(product.id(), product.price(), product.stockQuantity(),
+                        product.version(), false))
+                .collect(Collectors.toList());
+        return productUpdateBroadcaster.subscribe(
+                initial.stream().map(ProductLiveUpdateDTO::id).collect(Collectors.toList()), initial);
+    }
+
+    // Incremental sync: everything written after "since"; without "since" only the current position
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = AppConstants.CHANGES_PAGE_SIZE) Integer limit) {
+        return ResponseEntity.ok(productService.getChanges(since, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<ProductDetailDTO> getProduct(@PathVariable Long id) {
+        Optional<Product> found = productService.findProductById(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Product product = found.get();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ProductETags.of(product))
+                .body(ProductMapper.toDetail(product));
+    }
+
+    // Stock check for a whole cart in one query, before the cart is shown and before checkout
+    @PostMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@Valid @RequestBody AvailabilityRequest request) {
+        return ResponseEntity.ok(productService.checkAvailability(request));
+    }
+
+    @GetMapping("/category/{category}")
+    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
+        return ResponseEntity.ok(productService.getProductsByCategory(category));
     }
 
     @GetMapping("/search")
@@ -37,14 +132,78 @@ public class ProductController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String brand,
-            @RequestParam(required = false) String color) {
-        List<Product> products = productService.searchProducts(category, minPrice, maxPrice, brand, color);
-        return ResponseEntity.ok(products);
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = AppConstants.SORT_PRODUCTS_BY) String sortBy,
+            @RequestParam(defaultValue = AppConstants.SORT_DIR) String sortDir,
+            @RequestParam(required = false) Integer limit) {
+        List<Product> products = productService.searchProducts(category, minPrice, maxPrice, brand, color,
+                sortBy, sortDir, limit);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(ProductETags.of(products))
+                .body(products);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSearchResponse> searchWithFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) Integer limit) {
+        return ResponseEntity.ok(productService.searchWithFacets(category, minPrice, maxPrice, brand, color, limit));
     }
 
     @GetMapping("/search/name")
-    public ResponseEntity<List<Product>> searchByName(@RequestParam String name) {
-        return ResponseEntity.ok(productService.searchByName(name));
+    public ResponseEntity<List<Product>> searchByName(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
+        return ResponseEntity.ok(productService.searchByName(name, fuzzy));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = AppConstants.SUGGEST_LIMIT) Integer limit) {
+        return ResponseEntity.ok(productService.suggest(q, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>(productCache.stats());
+        stats.put("search", searchResultCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(HttpServletRequest request) {
+        // Streaming the whole catalog outlasts the default async timeout; raise it for this request only
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(exportTimeout.toMillis());
+        }
+        StreamingResponseBody body = productService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProducts(@RequestParam("file") MultipartFile file) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(file));
+    }
+
+    // Large feeds go as the raw body: multipart uploads are capped for the whole application,
+    // this is capped by catalog.import.max-size
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), null, request.getContentType()));
     }
 
     @PostMapping
@@ -0,0 +1,55 @@
+package com.minh.jewerlystore.controller;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+
+/**
+ * Strong ETags for product responses, built from product versions so they can be computed
+ * without serializing the body. Spring compares them with {@code If-None-Match} and answers
+ * 304 before the body is written.
+ */
+final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    static String of(Product product) {
+        return "\"" + product.getId() + "-" + product.getVersion() + "\"";
+    }
+
+    /**
+     * The highest version in the list plus a hash of every id and version, so the tag changes
+     * when any product is edited and when products enter, leave or move within the list.
+     */
+    static String of(Collection<Product> products, Object... parts) {
+        return ofList(products, Product::getId, Product::getVersion, parts);
+    }
+
+    static String ofSummaries(Collection<ProductSummaryDTO> products, Object... parts) {
+        return ofList(products, ProductSummaryDTO::id, ProductSummaryDTO::version, parts);
+    }
+
+    static String ofDetails(Collection<ProductDetailDTO> products, Object... parts) {
+        return ofList(products, ProductDetailDTO::id, ProductDetailDTO::version, parts);
+    }
+
+    private static <T> String ofList(Collection<T> items, Function<T, Long> idOf, Function<T, Long> versionOf,
+                                     Object... parts) {
+        long maxVersion = 0;
+        long hash = 1125899906842597L;
+        for (T item : items) {
+            long version = versionOf.apply(item) == null ? 0 : versionOf.apply(item);
+            maxVersion = Math.max(maxVersion, version);
+            hash = 31 * hash + idOf.apply(item);
+            hash = 31 * hash + version;
+        }
+        for (Object part : parts) {
+            hash = 31 * hash + (part == null ? 0 : part.hashCode());
+        }
+        return "\"" + maxVersion + "-" + Long.toHexString(hash) + "\"";
+    }
+}
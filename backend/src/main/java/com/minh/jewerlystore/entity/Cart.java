@@ -17,6 +17,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -32,7 +33,7 @@ public class Cart {
     private Long id;
 
     @OneToOne
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
     @JsonIgnoreProperties({"password", "email", "role"})
     private User user;
 
@@ -42,4 +43,8 @@ public class Cart {
 
     @Transient
     private List<CartItemDTO> itemDTOs = new ArrayList<>();
+
+    // Bumped when the cart or its list of items changes, so two writers of one cart cannot both win
+    @Version
+    private Long version;
 } 
\ No newline at end of file
@@ -9,7 +9,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,8 +22,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CartItem {
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids; the cart store also reserves blocks from this sequence so a line has its id
+    // before it is written
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_items_seq", allocationSize = CartItem.ID_BLOCK_SIZE)
     private Long id;
 
     @ManyToOne
@@ -35,4 +42,8 @@ public class CartItem {
 
     @Column(nullable = false)
     private Integer quantity;
+
+    // Bumped on every write, including the quantity increments in CartItemRepository
+    @Version
+    private Long version;
 } 
\ No newline at end of file
@@ -7,19 +7,29 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_price_id", columnList = "price, id"),
+    @Index(name = "idx_products_category_price", columnList = "category, price"),
+    @Index(name = "idx_products_brand_price", columnList = "brand, price"),
+    @Index(name = "idx_products_color_price", columnList = "color, price")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,4 +51,8 @@ public class Product {
 
     @Column(name = "image_url")
     private String imageUrl;
+
+    // Bumped on every write; used for optimistic locking and as the product's ETag
+    @Version
+    private Long version;
 } 
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.minh.jewerlystore.entity;
+
+import java.time.LocalDateTime;
+
+import com.minh.jewerlystore.event.ProductChangeType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per product write, in the same transaction as the write. The sequence clients sync
+ * from is assigned after the write commits; until then it is null and the change is not served.
+ */
+@Entity
+@Table(name = "product_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_change_seq")
+    @SequenceGenerator(name = "product_change_seq", sequenceName = "product_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "seq", unique = true)
+    private Long sequence;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ProductChangeType type;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+}
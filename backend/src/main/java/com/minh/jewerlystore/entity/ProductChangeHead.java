@@ -0,0 +1,28 @@
+package com.minh.jewerlystore.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row holding the last change sequence number handed out. Sequencing locks it, so only
+ * one transaction at a time numbers changes and numbers become visible in order.
+ */
+@Entity
+@Table(name = "product_change_head")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeHead {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
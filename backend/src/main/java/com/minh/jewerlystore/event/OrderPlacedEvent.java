@@ -0,0 +1,18 @@
+package com.minh.jewerlystore.event;
+
+import com.minh.jewerlystore.entity.Order;
+import com.minh.jewerlystore.entity.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an order is created. Listeners that must not act on an order that is rolled
+ * back, such as emptying the cart, listen for it after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+    private final User user;
+    private final Order order;
+}
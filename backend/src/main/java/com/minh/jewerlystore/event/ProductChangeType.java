@@ -0,0 +1,8 @@
+package com.minh.jewerlystore.event;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    STOCK_CHANGED,
+    DELETED
+}
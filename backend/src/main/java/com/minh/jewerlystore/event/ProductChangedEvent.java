@@ -0,0 +1,20 @@
+package com.minh.jewerlystore.event;
+
+import com.minh.jewerlystore.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a product row is written. Listeners that keep derived copies of the
+ * catalog (caches, indexes) subscribe with {@code @TransactionalEventListener} so they only
+ * see committed state.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final Long productId;
+    // Product as written, null for DELETED
+    private final Product product;
+    private final ProductChangeType type;
+}
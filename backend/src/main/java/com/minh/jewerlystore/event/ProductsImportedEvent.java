@@ -0,0 +1,18 @@
+package com.minh.jewerlystore.event;
+
+import java.util.List;
+
+import com.minh.jewerlystore.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once per committed import chunk instead of one {@link ProductChangedEvent} per row,
+ * so listeners can apply the whole chunk in a single update.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+    private final List<Product> products;
+}
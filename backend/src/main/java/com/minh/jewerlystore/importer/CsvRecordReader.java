@@ -0,0 +1,129 @@
+package com.minh.jewerlystore.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * RFC 4180 style CSV: the first record is a header naming the columns, fields are separated by
+ * commas and may be wrapped in double quotes to contain commas, line breaks or doubled quotes.
+ * A header without one of the required columns fails the whole file before any row is read.
+ */
+class CsvRecordReader implements ImportRecordReader {
+    private final BufferedReader reader;
+    private final List<String> requiredColumns;
+    private List<String> columns;
+    private long line = 1;
+
+    CsvRecordReader(BufferedReader reader, List<String> requiredColumns) {
+        this.reader = reader;
+        this.requiredColumns = requiredColumns;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        while (true) {
+            long start = line;
+            List<String> values;
+            try {
+                values = readRow();
+            } catch (IllegalArgumentException e) {
+                return ImportRecord.failed(start, e.getMessage());
+            }
+            if (values == null) {
+                return null;
+            }
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            if (values.size() != columns.size()) {
+                return ImportRecord.failed(start, "Expected " + columns.size() + " fields but found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                fields.put(columns.get(i), values.get(i));
+            }
+            return ImportRecord.of(start, fields);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        // Skip the byte order mark spreadsheet exports put in front of UTF-8 files
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        List<String> header = readRow();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        columns = new ArrayList<>(header.size());
+        Set<String> named = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (String column : header) {
+            columns.add(column.trim());
+            named.add(column.trim());
+        }
+        List<String> missing = requiredColumns.stream().filter(column -> !named.contains(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing required columns: " + String.join(", ", missing));
+        }
+    }
+
+    // Returns null at the end of the input
+    private List<String> readRow() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
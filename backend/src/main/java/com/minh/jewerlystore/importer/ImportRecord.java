@@ -0,0 +1,28 @@
+package com.minh.jewerlystore.importer;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One record of an import file: its field values keyed by column name, or the reason it could
+ * not be parsed.
+ */
+@Getter
+@AllArgsConstructor
+public class ImportRecord {
+    // Line in the file where the record starts, 1-based
+    private final long line;
+    private final Map<String, String> fields;
+    // Parse error, null when fields is set
+    private final String error;
+
+    public static ImportRecord of(long line, Map<String, String> fields) {
+        return new ImportRecord(line, fields, null);
+    }
+
+    public static ImportRecord failed(long line, String error) {
+        return new ImportRecord(line, null, error);
+    }
+}
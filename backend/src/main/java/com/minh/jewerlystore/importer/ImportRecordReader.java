@@ -0,0 +1,32 @@
+package com.minh.jewerlystore.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads an import file one record at a time, so files of any size can be processed without
+ * loading them into memory.
+ */
+public interface ImportRecordReader {
+
+    /**
+     * @return the next record, or null at the end of the input
+     * @throws IllegalArgumentException if the file as a whole is unusable, e.g. a CSV header is
+     *                                  missing required columns
+     */
+    ImportRecord next() throws IOException;
+
+    /**
+     * @param requiredColumns columns the header must name, matched ignoring case
+     */
+    static ImportRecordReader csv(BufferedReader reader, List<String> requiredColumns) {
+        return new CsvRecordReader(reader, requiredColumns);
+    }
+
+    static ImportRecordReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new NdjsonRecordReader(reader, objectMapper);
+    }
+}
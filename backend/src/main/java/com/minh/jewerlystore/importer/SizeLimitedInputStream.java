@@ -0,0 +1,54 @@
+package com.minh.jewerlystore.importer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.server.PayloadTooLargeException;
+
+/**
+ * Fails with 413 once more than {@code maxBytes} have been read, for request bodies that are
+ * streamed without a multipart size limit in front of them.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long read;
+
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long bytes) {
+        read += bytes;
+        if (read > maxBytes) {
+            throw new PayloadTooLargeException(new IllegalArgumentException(
+                    "Import file exceeds the limit of " + maxBytes + " bytes"));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.minh.jewerlystore.live;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.payload.dto.ProductLiveUpdateDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes committed price and stock changes to Server-Sent Events subscribers of the affected
+ * products.
+ *
+ * Changes are never sent from the thread that committed them. Each subscriber holds at most one
+ * pending update per product, the one with the highest version, so a burst of orders on a hot
+ * product turns into a single event per flush and a late older event never overtakes a newer one. A
+ * flush hands each subscriber with pending updates to its own virtual thread; a subscriber whose
+ * previous flush is still blocked on a slow connection is skipped and keeps coalescing, and is
+ * disconnected once it has been stuck for longer than the stall timeout. Memory per subscriber is
+ * therefore bounded by the number of products it watches.
+ */
+@Component
+@Slf4j
+public class ProductUpdateBroadcaster {
+    static final String EVENT_NAME = "product";
+
+    private final Map<Long, Set<Subscriber>> subscribersByProduct = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Executor sender;
+    private final long flushMillis;
+    private final long timeoutMillis;
+    private final long stallMillis;
+    private final long heartbeatMillis;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ProductUpdateBroadcaster(@Value("${catalog.live.flush-millis:250}") long flushMillis,
+                                    @Value("${catalog.live.timeout-millis:1800000}") long timeoutMillis,
+                                    @Value("${catalog.live.stall-millis:30000}") long stallMillis,
+                                    @Value("${catalog.live.heartbeat-millis:15000}") long heartbeatMillis) {
+        this(Executors.newVirtualThreadPerTaskExecutor(), flushMillis, timeoutMillis, stallMillis, heartbeatMillis);
+    }
+
+    ProductUpdateBroadcaster(Executor sender, long flushMillis, long timeoutMillis, long stallMillis,
+                             long heartbeatMillis) {
+        this.sender = sender;
+        this.flushMillis = flushMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.stallMillis = stallMillis;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("product-live-flush")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param current state of the products right now, sent as the first events so the client does
+     *                not have to fetch it separately
+     */
+    public SseEmitter subscribe(Collection<Long> productIds, Collection<ProductLiveUpdateDTO> current) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(productIds, current, emitter);
+        return emitter;
+    }
+
+    void subscribe(Collection<Long> productIds, Collection<ProductLiveUpdateDTO> current, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(Set.copyOf(productIds), emitter);
+        current.forEach(update -> subscriber.pending.merge(update.id(), update, ProductUpdateBroadcaster::newer));
+        subscribers.add(subscriber);
+        for (Long productId : subscriber.productIds) {
+            subscribersByProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangeType.CREATED) {
+            return;
+        }
+        Set<Subscriber> watching = subscribersByProduct.get(event.getProductId());
+        if (watching == null || watching.isEmpty()) {
+            return;
+        }
+        Product product = event.getProduct();
+        ProductLiveUpdateDTO update = product == null
+                ? new ProductLiveUpdateDTO(event.getProductId(), null, null, null, true)
+                : new ProductLiveUpdateDTO(product.getId(), product.getPrice(), product.getStockQuantity(),
+                        product.getVersion(), false);
+        for (Subscriber subscriber : watching) {
+            subscriber.pending.merge(update.id(), update, ProductUpdateBroadcaster::newer);
+        }
+    }
+
+    // Events for one product can be delivered out of order; keep the later version. A deletion has
+    // no version and always wins
+    private static ProductLiveUpdateDTO newer(ProductLiveUpdateDTO pending, ProductLiveUpdateDTO incoming) {
+        if (pending.deleted() || incoming.deleted()) {
+            return pending.deleted() ? pending : incoming;
+        }
+        if (pending.version() != null && incoming.version() != null && incoming.version() < pending.version()) {
+            return pending;
+        }
+        return incoming;
+    }
+
+    void flush() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sending.get()) {
+                if (now - subscriber.sendingSince > stallMillis) {
+                    log.debug("Disconnecting live subscriber stalled for {} ms", now - subscriber.sendingSince);
+                    subscriber.emitter.complete();
+                    unsubscribe(subscriber);
+                }
+                continue;
+            }
+            boolean heartbeatDue = now - subscriber.lastSentAt > heartbeatMillis;
+            if ((subscriber.pending.isEmpty() && !heartbeatDue) || !subscriber.sending.compareAndSet(false, true)) {
+                continue;
+            }
+            subscriber.sendingSince = now;
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            boolean sent = false;
+            for (Long productId : subscriber.pending.keySet()) {
+                ProductLiveUpdateDTO update = subscriber.pending.remove(productId);
+                // Skip updates that put back what the subscriber already has, e.g. a name-only edit
+                if (update != null && !sameAsLastSent(subscriber, update)
+                        && newer(subscriber.lastSent.getOrDefault(productId, update), update) == update) {
+                    subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(update));
+                    subscriber.lastSent.put(productId, update);
+                    sent = true;
+                }
+            }
+            if (!sent && System.currentTimeMillis() - subscriber.lastSentAt > heartbeatMillis) {
+                subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                sent = true;
+            }
+            if (sent) {
+                subscriber.lastSentAt = System.currentTimeMillis();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the emitter callbacks may not fire for a broken connection
+            unsubscribe(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private boolean sameAsLastSent(Subscriber subscriber, ProductLiveUpdateDTO update) {
+        ProductLiveUpdateDTO last = subscriber.lastSent.get(update.id());
+        return last != null && last.deleted() == update.deleted()
+                && Objects.equals(last.stockQuantity(), update.stockQuantity())
+                && (last.price() == null ? update.price() == null
+                        : update.price() != null && last.price().compareTo(update.price()) == 0);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long productId : subscriber.productIds) {
+            subscribersByProduct.computeIfPresent(productId, (id, watching) -> {
+                watching.remove(subscriber);
+                return watching.isEmpty() ? null : watching;
+            });
+        }
+    }
+
+    private static final class Subscriber {
+        private final Set<Long> productIds;
+        private final SseEmitter emitter;
+        // Latest unsent update per product; a newer change overwrites the older one
+        private final Map<Long, ProductLiveUpdateDTO> pending = new ConcurrentHashMap<>();
+        private final Map<Long, ProductLiveUpdateDTO> lastSent = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendingSince;
+        private volatile long lastSentAt = System.currentTimeMillis();
+
+        private Subscriber(Set<Long> productIds, SseEmitter emitter) {
+            this.productIds = productIds;
+            this.emitter = emitter;
+        }
+    }
+}
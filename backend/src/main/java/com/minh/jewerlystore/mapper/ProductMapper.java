@@ -0,0 +1,35 @@
+package com.minh.jewerlystore.mapper;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+
+public class ProductMapper {
+    public static Product copyOf(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setCategory(product.getCategory());
+        copy.setBrand(product.getBrand());
+        copy.setColor(product.getColor());
+        copy.setStockQuantity(product.getStockQuantity());
+        copy.setImageUrl(product.getImageUrl());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+
+    public static ProductDetailDTO toDetail(Product product) {
+        return new ProductDetailDTO(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getBrand(),
+                product.getColor(),
+                product.getStockQuantity(),
+                product.getImageUrl(),
+                product.getVersion());
+    }
+}
@@ -0,0 +1,19 @@
+package com.minh.jewerlystore.payload.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Everything shown on a product page, including the full description.
+ */
+public record ProductDetailDTO(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        String category,
+        String brand,
+        String color,
+        Integer stockQuantity,
+        String imageUrl,
+        Long version) {
+}
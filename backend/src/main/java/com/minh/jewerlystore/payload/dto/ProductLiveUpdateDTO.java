@@ -0,0 +1,15 @@
+package com.minh.jewerlystore.payload.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Price and stock of one product as pushed to live subscribers. Price and stock are null when
+ * the product was deleted.
+ */
+public record ProductLiveUpdateDTO(
+        Long id,
+        BigDecimal price,
+        Integer stockQuantity,
+        Long version,
+        boolean deleted) {
+}
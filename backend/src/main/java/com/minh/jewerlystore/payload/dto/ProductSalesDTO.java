@@ -0,0 +1,10 @@
+package com.minh.jewerlystore.payload.dto;
+
+/**
+ * Total quantity ordered of one product, selected by a JPQL constructor expression for ranking
+ * suggestions.
+ */
+public record ProductSalesDTO(
+        Long productId,
+        Long unitsSold) {
+}
@@ -0,0 +1,9 @@
+package com.minh.jewerlystore.payload.dto;
+
+/**
+ * Current stock of one product, selected by a JPQL constructor expression for availability checks.
+ */
+public record ProductStockDTO(
+        Long id,
+        Integer stockQuantity) {
+}
@@ -0,0 +1,16 @@
+package com.minh.jewerlystore.payload.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Listing view of a product. Selected directly by JPQL constructor expressions, so listing
+ * queries never read the description column.
+ */
+public record ProductSummaryDTO(
+        Long id,
+        String name,
+        BigDecimal price,
+        String category,
+        String imageUrl,
+        Long version) {
+}
@@ -0,0 +1,33 @@
+package com.minh.jewerlystore.payload.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.minh.jewerlystore.config.AppConstants;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+public class AvailabilityRequest {
+    @NotNull
+    @Size(max = AppConstants.MAX_BATCH_IDS)
+    private List<@NotNull @Valid Line> items = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        @NotNull
+        private Long productId;
+
+        @NotNull
+        @Min(1)
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,32 @@
+package com.minh.jewerlystore.payload.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+public class CartOperationsRequest {
+    // Applied in order; either all of them take effect or none do
+    private List<Operation> operations = new ArrayList<>();
+
+    public enum Type {
+        // Adds quantity to the line, creating it if needed
+        ADD,
+        // Sets the line's quantity; 0 removes it
+        SET,
+        // Removes the line if present
+        REMOVE
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+        private Type op;
+        private Long productId;
+        private Integer quantity;
+    }
+}
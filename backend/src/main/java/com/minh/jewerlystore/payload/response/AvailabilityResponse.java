@@ -0,0 +1,27 @@
+package com.minh.jewerlystore.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityResponse {
+    private boolean allAvailable;
+    // One entry per requested line, in request order
+    private List<LineAvailability> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineAvailability {
+        private Long productId;
+        private Integer requestedQuantity;
+        // null when the product does not exist
+        private Integer stockQuantity;
+        private boolean available;
+    }
+}
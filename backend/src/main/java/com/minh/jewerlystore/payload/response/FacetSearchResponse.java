@@ -0,0 +1,20 @@
+package com.minh.jewerlystore.payload.response;
+
+import java.util.List;
+import java.util.Map;
+
+import com.minh.jewerlystore.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResponse {
+    private int total;
+    private List<Product> products;
+    // field -> value -> number of matching products, e.g. "brand" -> {"PNJ": 12}
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,19 @@
+package com.minh.jewerlystore.payload.response;
+
+import java.util.List;
+
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    // In the order the ids were requested, duplicates removed
+    private List<ProductDetailDTO> products;
+    // Requested ids with no product, e.g. deleted since the client last saw them
+    private List<Long> missing;
+}
@@ -0,0 +1,21 @@
+package com.minh.jewerlystore.payload.response;
+
+import java.util.List;
+
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponse {
+    // Current state of every product created or updated in this page of changes
+    private List<ProductDetailDTO> changed;
+    private List<Long> deleted;
+    // Pass as "since" on the next call
+    private long nextSince;
+    private boolean hasMore;
+}
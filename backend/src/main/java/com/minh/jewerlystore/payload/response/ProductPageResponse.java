@@ -0,0 +1,20 @@
+package com.minh.jewerlystore.payload.response;
+
+import java.util.List;
+
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductSummaryDTO> content;
+    private int size;
+    // Opaque token for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,28 @@
+package com.minh.jewerlystore.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.minh.jewerlystore.entity.CartItem;
+
+@Repository
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    // Applied in the database so concurrent changes to the same line add up instead of overwriting each other
+    @Modifying
+    @Query("UPDATE CartItem i SET i.quantity = i.quantity + :delta, i.version = i.version + 1 WHERE i.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("delta") int delta);
+
+    // The id comes from the cart store, which reserves it from cart_items_seq when the line is created
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (id, cart_id, product_id, quantity, version) "
+            + "VALUES (:id, :cartId, :productId, :quantity, 0)", nativeQuery = true)
+    int insertLine(@Param("id") Long id, @Param("cartId") Long cartId,
+                   @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM CartItem i WHERE i.cart.id = :cartId AND i.quantity <= 0")
+    int deleteEmptyLines(@Param("cartId") Long cartId);
+}
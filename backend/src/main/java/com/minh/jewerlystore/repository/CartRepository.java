@@ -2,7 +2,11 @@ package com.minh.jewerlystore.repository;
 
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.minh.jewerlystore.entity.Cart;
@@ -10,5 +14,23 @@ import com.minh.jewerlystore.entity.User;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    // Items and their (eager) products come back in the same query instead of one select per line
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
     Optional<Cart> findByUser(User user);
-} 
\ No newline at end of file
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    Optional<Cart> findById(Long id);
+
+    // Creates the user's cart unless it exists, in one statement that Hibernate renders for the
+    // database (ON CONFLICT on PostgreSQL, MERGE where that is missing). carts.user_id is unique, so
+    // concurrent first writes for the same user end up on the same row. The version starts at 0 like any persisted cart; a null
+    // version would turn optimistic locking off for the row
+    @Modifying
+    @Query("INSERT INTO Cart (user.id, version) VALUES (:userId, 0L) "
+            + "ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+}
@@ -4,13 +4,20 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.minh.jewerlystore.entity.Order;
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.payload.dto.ProductSalesDTO;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserOrderByOrderDateDesc(User user);
     Optional<Order> findByIdAndUser(Long id, User user);
+
+    // Total quantity ordered of every product that has been ordered
+    @Query("SELECT new com.minh.jewerlystore.payload.dto.ProductSalesDTO(oi.product.id, SUM(oi.quantity)) "
+            + "FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductSalesDTO> sumQuantityByProduct();
 } 
\ No newline at end of file
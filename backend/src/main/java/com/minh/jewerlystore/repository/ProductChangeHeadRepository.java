@@ -0,0 +1,26 @@
+package com.minh.jewerlystore.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.minh.jewerlystore.entity.ProductChangeHead;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ProductChangeHeadRepository extends JpaRepository<ProductChangeHead, Integer> {
+    // Blocks until no other transaction is sequencing changes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM ProductChangeHead h WHERE h.id = " + ProductChangeHead.ID)
+    Optional<ProductChangeHead> lock();
+
+    @Modifying
+    @Query("INSERT INTO ProductChangeHead (id, lastSequence) VALUES (" + ProductChangeHead.ID + ", 0L) "
+            + "ON CONFLICT DO NOTHING")
+    int insertIfAbsent();
+}
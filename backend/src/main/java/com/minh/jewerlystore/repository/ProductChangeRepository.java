@@ -0,0 +1,21 @@
+package com.minh.jewerlystore.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.minh.jewerlystore.entity.ProductChange;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+    List<ProductChange> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Pageable pageable);
+
+    // Changes whose transaction committed but that have no sequence number yet
+    List<ProductChange> findBySequenceIsNullOrderByIdAsc();
+
+    @Query("SELECT COALESCE(MAX(c.sequence), 0) FROM ProductChange c")
+    long findLastSequence();
+}
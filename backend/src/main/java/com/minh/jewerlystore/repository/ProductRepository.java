@@ -1,36 +1,78 @@
 package com.minh.jewerlystore.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductStockDTO;
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     List<Product> findByCategory(String category);
     
     List<Product> findByBrand(String brand);
     
     List<Product> findByColor(String color);
-    
-    @Query("SELECT p FROM Product p WHERE " +
-           "(:category IS NULL OR p.category = :category) AND " +
-           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-           "(:brand IS NULL OR p.brand = :brand) AND " +
-           "(:color IS NULL OR p.color = :color)")
-    List<Product> findByFilters(
-        @Param("category") String category,
-        @Param("minPrice") BigDecimal minPrice,
-        @Param("maxPrice") BigDecimal maxPrice,
-        @Param("brand") String brand,
-        @Param("color") String color
-    );
-    
-    List<Product> findByNameContainingIgnoreCase(String name);
-} 
\ No newline at end of file
+
+    String SUMMARY_SELECT = "SELECT new com.minh.jewerlystore.payload.dto.ProductSummaryDTO("
+            + "p.id, p.name, p.price, p.category, p.imageUrl, p.version) FROM Product p";
+
+    // Keyset pagination: each page seeks past the last row of the previous one,
+    // so the cost of a page does not depend on how deep it is
+    @Query(SUMMARY_SELECT)
+    List<ProductSummaryDTO> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE p.id > :id")
+    List<ProductSummaryDTO> findSummariesAfterId(@Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE p.id < :id")
+    List<ProductSummaryDTO> findSummariesBeforeId(@Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE p.price > :price OR (p.price = :price AND p.id > :id) "
+            + "ORDER BY p.price ASC, p.id ASC")
+    List<ProductSummaryDTO> findSummariesAfterPriceAsc(@Param("price") BigDecimal price, @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE p.price < :price OR (p.price = :price AND p.id < :id) "
+            + "ORDER BY p.price DESC, p.id DESC")
+    List<ProductSummaryDTO> findSummariesAfterPriceDesc(@Param("price") BigDecimal price, @Param("id") Long id, Pageable pageable);
+
+    // Current stock of each product, read in one query for availability checks
+    @Query("SELECT new com.minh.jewerlystore.payload.dto.ProductStockDTO(p.id, p.stockQuantity) "
+            + "FROM Product p WHERE p.id IN :ids")
+    List<ProductStockDTO> findStockQuantities(@Param("ids") Collection<Long> ids);
+
+    // Checked and applied in one statement, so concurrent checkouts of the same product queue on the
+    // row lock instead of failing the version check, and stock can never go below zero.
+    // Clears the persistence context so products read afterwards carry the new stock and version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 "
+            + "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Batches of full entities for rebuilding the in-memory indexes
+    List<Product> findByIdGreaterThan(Long id, Pageable pageable);
+
+    // Server-side cursor for exports; the PostgreSQL driver only honours the fetch size inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
+}
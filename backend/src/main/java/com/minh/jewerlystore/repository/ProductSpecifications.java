@@ -0,0 +1,57 @@
+package com.minh.jewerlystore.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.minh.jewerlystore.entity.Product;
+
+/**
+ * Building blocks for product search. Only the filters that are actually present become
+ * predicates, so every filter combination gets its own SQL and PostgreSQL can plan it against
+ * the matching composite index instead of one generic plan full of "IS NULL OR" branches.
+ */
+public class ProductSpecifications {
+    public static Specification<Product> hasCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Product> hasBrand(String brand) {
+        return (root, query, cb) -> cb.equal(root.get("brand"), brand);
+    }
+
+    public static Specification<Product> hasColor(String color) {
+        return (root, query, cb) -> cb.equal(root.get("color"), color);
+    }
+
+    public static Specification<Product> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> withFilters(String category, BigDecimal minPrice, BigDecimal maxPrice,
+            String brand, String color) {
+        List<Specification<Product>> specs = new ArrayList<>();
+        if (category != null) {
+            specs.add(hasCategory(category));
+        }
+        if (minPrice != null) {
+            specs.add(priceAtLeast(minPrice));
+        }
+        if (maxPrice != null) {
+            specs.add(priceAtMost(maxPrice));
+        }
+        if (brand != null) {
+            specs.add(hasBrand(brand));
+        }
+        if (color != null) {
+            specs.add(hasColor(color));
+        }
+        return Specification.allOf(specs);
+    }
+}
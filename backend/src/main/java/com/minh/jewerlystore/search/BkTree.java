@@ -0,0 +1,212 @@
+package com.minh.jewerlystore.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * BK-tree over a vocabulary of terms, keyed by Levenshtein distance. A lookup within distance k
+ * only descends into children whose edge distance lies in [d - k, d + k] of the current node's
+ * distance d, which prunes most of the vocabulary for small k.
+ *
+ * A removed term stays in the tree as a marked node, since the terms below it were placed by
+ * their distance to it, and is skipped by lookups; adding it again unmarks it. The tree rebuilds
+ * itself from the remaining terms once marked nodes outnumber them.
+ */
+public class BkTree {
+    private static final int MIN_REBUILD_REMOVED = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+    private int removed;
+
+    public void add(String term) {
+        lock.writeLock().lock();
+        try {
+            insert(term);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String term) {
+        lock.writeLock().lock();
+        try {
+            Node node = find(term);
+            if (node == null || node.removed) {
+                return;
+            }
+            node.removed = true;
+            size--;
+            removed++;
+            if (removed > MIN_REBUILD_REMOVED && removed > size) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of terms in the tree, not counting removed ones
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            size = 0;
+            removed = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return terms within maxDistance edits of term, with their distances
+     */
+    public List<Match> search(String term, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            if (root == null) {
+                return matches;
+            }
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = distance(node.term, term);
+                if (distance <= maxDistance && !node.removed) {
+                    matches.add(new Match(node.term, distance));
+                }
+                for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                    if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                        pending.push(child.getValue());
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                if (node.removed) {
+                    node.removed = false;
+                    size++;
+                    removed--;
+                }
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private Node find(String term) {
+        Node node = root;
+        while (node != null) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                return node;
+            }
+            node = node.children.get(distance);
+        }
+        return null;
+    }
+
+    // Drops the removed terms' nodes by inserting the remaining terms into a fresh tree
+    private void rebuild() {
+        List<String> terms = new ArrayList<>(size);
+        collect(terms);
+        root = null;
+        size = 0;
+        removed = 0;
+        terms.forEach(this::insert);
+    }
+
+    private void collect(Collection<String> terms) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (!node.removed) {
+                terms.add(node.term);
+            }
+            node.children.values().forEach(pending::push);
+        }
+    }
+
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+        private final String term;
+        private final int distance;
+    }
+
+    private static final class Node {
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+        private boolean removed;
+
+        private Node(String term) {
+            this.term = term;
+        }
+    }
+}
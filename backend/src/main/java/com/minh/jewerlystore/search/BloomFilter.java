@@ -0,0 +1,92 @@
+package com.minh.jewerlystore.search;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter over {@code long} keys. Each layer is a plain Bloom filter sized for a
+ * fixed number of keys; once the newest layer is full a layer twice as large with half the
+ * false positive rate is added, so the overall rate stays under twice the configured one no
+ * matter how many keys arrive. Bits are set with CAS, so lookups never block.
+ */
+public class BloomFilter {
+    private final List<Layer> layers = new CopyOnWriteArrayList<>();
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        layers.add(new Layer(Math.max(expectedKeys, 64), falsePositiveRate / 2));
+    }
+
+    public synchronized void add(long key) {
+        if (mightContain(key)) {
+            return;
+        }
+        Layer last = layers.get(layers.size() - 1);
+        if (last.count >= last.capacity) {
+            last = new Layer(last.capacity * 2, last.falsePositiveRate / 2);
+            layers.add(last);
+        }
+        last.add(key);
+    }
+
+    public boolean mightContain(long key) {
+        for (Layer layer : layers) {
+            if (layer.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // SplitMix64 finalizer: spreads sequential ids over all 64 bits
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+
+    private static final class Layer {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private long count;
+
+        private Layer(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+            this.bitCount = (long) bits.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        private void add(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            count++;
+        }
+
+        private boolean mightContain(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
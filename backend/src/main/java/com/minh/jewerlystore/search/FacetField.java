@@ -0,0 +1,27 @@
+package com.minh.jewerlystore.search;
+
+import java.util.function.Function;
+
+import com.minh.jewerlystore.entity.Product;
+
+public enum FacetField {
+    CATEGORY("category", Product::getCategory),
+    BRAND("brand", Product::getBrand),
+    COLOR("color", Product::getColor);
+
+    private final String key;
+    private final Function<Product, String> extractor;
+
+    FacetField(String key, Function<Product, String> extractor) {
+        this.key = key;
+        this.extractor = extractor;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String valueOf(Product product) {
+        return extractor.apply(product);
+    }
+}
@@ -0,0 +1,224 @@
+package com.minh.jewerlystore.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bitmap index over the category, brand and color of every product. Each product occupies a
+ * slot; slots of removed products are reused so the bitmaps stay dense. A query ANDs the bitmaps
+ * of the requested values and computes facet counts for every field with that field's own
+ * filter left out, which is what a filter sidebar needs to show.
+ */
+@Component
+public class FacetIndex implements ProductIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<FacetField, Map<String, BitSet>> bitmaps = new EnumMap<>(FacetField.class);
+    private final Map<FacetField, String[]> valuesBySlot = new EnumMap<>(FacetField.class);
+    private long[] idsBySlot = new long[64];
+    private int slotCount;
+
+    public FacetIndex() {
+        for (FacetField field : FacetField.values()) {
+            bitmaps.put(field, new HashMap<>());
+            valuesBySlot.put(field, new String[64]);
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(product.getId());
+            if (slot == null) {
+                slot = allocateSlot(product.getId());
+            }
+            for (FacetField field : FacetField.values()) {
+                setValue(field, slot, field.valueOf(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            for (FacetField field : FacetField.values()) {
+                setValue(field, slot, null);
+            }
+            live.clear(slot);
+            freeSlots.push(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            freeSlots.clear();
+            live.clear();
+            for (FacetField field : FacetField.values()) {
+                bitmaps.get(field).clear();
+                valuesBySlot.put(field, new String[64]);
+            }
+            idsBySlot = new long[64];
+            slotCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result query(Map<FacetField, String> filters, int limit) {
+        return query(filters, null, limit);
+    }
+
+    /**
+     * @param filters    exact values to match, fields without a value are not filtered
+     * @param restrictTo ids from another index (e.g. a price range) that every result must be in,
+     *                   null for no restriction
+     * @param limit      maximum number of matching product ids to return
+     */
+    public Result query(Map<FacetField, String> filters, long[] restrictTo, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet allowed = live;
+            if (restrictTo != null) {
+                allowed = new BitSet();
+                for (long id : restrictTo) {
+                    Integer slot = slotsById.get(id);
+                    if (slot != null) {
+                        allowed.set(slot);
+                    }
+                }
+            }
+
+            Map<FacetField, BitSet> filterBitmaps = new EnumMap<>(FacetField.class);
+            for (Map.Entry<FacetField, String> filter : filters.entrySet()) {
+                if (filter.getValue() != null) {
+                    BitSet bitmap = bitmaps.get(filter.getKey()).get(filter.getValue());
+                    filterBitmaps.put(filter.getKey(), bitmap != null ? bitmap : new BitSet());
+                }
+            }
+
+            BitSet matches = intersect(allowed, filterBitmaps, null);
+            List<Long> ids = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            for (int slot = matches.nextSetBit(0); slot >= 0 && ids.size() < limit; slot = matches.nextSetBit(slot + 1)) {
+                ids.add(idsBySlot[slot]);
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (FacetField field : FacetField.values()) {
+                BitSet base = filterBitmaps.containsKey(field) ? intersect(allowed, filterBitmaps, field) : matches;
+                counts.put(field.getKey(), countValues(field, base));
+            }
+            return new Result(matches.cardinality(), ids, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // AND of all filter bitmaps except the one for the excluded field
+    private BitSet intersect(BitSet allowed, Map<FacetField, BitSet> filterBitmaps, FacetField excluded) {
+        BitSet result = (BitSet) allowed.clone();
+        for (Map.Entry<FacetField, BitSet> filter : filterBitmaps.entrySet()) {
+            if (filter.getKey() != excluded) {
+                result.and(filter.getValue());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> countValues(FacetField field, BitSet base) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> value : bitmaps.get(field).entrySet()) {
+            BitSet intersection = (BitSet) value.getValue().clone();
+            intersection.and(base);
+            int count = intersection.cardinality();
+            if (count > 0) {
+                counts.add(Map.entry(value.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private int allocateSlot(Long productId) {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            slot = slotCount++;
+            if (slot == idsBySlot.length) {
+                int capacity = idsBySlot.length * 2;
+                idsBySlot = Arrays.copyOf(idsBySlot, capacity);
+                for (FacetField field : FacetField.values()) {
+                    valuesBySlot.put(field, Arrays.copyOf(valuesBySlot.get(field), capacity));
+                }
+            }
+        }
+        idsBySlot[slot] = productId;
+        slotsById.put(productId, slot);
+        live.set(slot);
+        return slot;
+    }
+
+    private void setValue(FacetField field, int slot, String value) {
+        String[] values = valuesBySlot.get(field);
+        String previous = values[slot];
+        if (previous != null && previous.equals(value)) {
+            return;
+        }
+        Map<String, BitSet> fieldBitmaps = bitmaps.get(field);
+        if (previous != null) {
+            BitSet bitmap = fieldBitmaps.get(previous);
+            bitmap.clear(slot);
+            if (bitmap.isEmpty()) {
+                fieldBitmaps.remove(previous);
+            }
+        }
+        if (value != null) {
+            fieldBitmaps.computeIfAbsent(value, v -> new BitSet()).set(slot);
+        }
+        values[slot] = value;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final int total;
+        private final List<Long> ids;
+        private final Map<String, Map<String, Integer>> counts;
+    }
+}
@@ -0,0 +1,334 @@
+package com.minh.jewerlystore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking over documents identified by a {@code long} key.
+ *
+ * Documents get internal ids in insertion order, so every postings list is sorted by doc id and
+ * queries can merge them document-at-a-time without a per-query score array. Replacing a document
+ * tombstones the old doc id and appends a new one; tombstones are purged once they make up half
+ * of the index.
+ */
+public class InvertedIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_COMPACT_DOCS = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docsByKey = new HashMap<>();
+    private long[] keys = new long[64];
+    private int[] lengths = new int[64];
+    private Postings[][] docTerms = new Postings[64][];
+    private int[][] docFreqs = new int[64][];
+    private BitSet deleted = new BitSet();
+    private int maxDoc;
+    private int liveDocs;
+    private long totalLength;
+
+    public void put(long key, Map<String, Integer> termFreqs) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(key);
+            if (!termFreqs.isEmpty()) {
+                addDoc(key, termFreqs);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(key);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings = new HashMap<>();
+            docsByKey.clear();
+            keys = new long[64];
+            lengths = new int[64];
+            docTerms = new Postings[64][];
+            docFreqs = new int[64][];
+            deleted = new BitSet();
+            maxDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasTerm(String term) {
+        lock.readLock().lock();
+        try {
+            return postings.containsKey(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks documents matching any of the query terms. Each term carries a weight that scales its
+     * BM25 contribution, so callers can down-weight expanded or approximate terms.
+     *
+     * @return document keys, best match first
+     */
+    public List<Long> search(Map<String, Float> queryTerms, int limit) {
+        if (limit <= 0 || queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return Collections.emptyList();
+            }
+            List<TermCursor> cursors = new ArrayList<>(queryTerms.size());
+            for (Map.Entry<String, Float> term : queryTerms.entrySet()) {
+                Postings list = postings.get(term.getKey());
+                if (list != null) {
+                    float idf = (float) Math.log(1 + (liveDocs - list.liveCount + 0.5) / (list.liveCount + 0.5));
+                    cursors.add(new TermCursor(list, term.getValue() * idf));
+                }
+            }
+            return topKeys(cursors, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> topKeys(List<TermCursor> cursors, int limit) {
+        float avgLength = (float) totalLength / liveDocs;
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (TermCursor cursor : cursors) {
+                if (cursor.hasNext() && cursor.doc() < doc) {
+                    doc = cursor.doc();
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+            float score = 0;
+            float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+            for (TermCursor cursor : cursors) {
+                if (cursor.hasNext() && cursor.doc() == doc) {
+                    float tf = cursor.freq();
+                    score += cursor.weight * tf * (K1 + 1) / (tf + norm);
+                    cursor.advance();
+                }
+            }
+            if (deleted.get(doc)) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(doc, score));
+            } else if (score > best.peek().score) {
+                best.poll();
+                best.add(new Hit(doc, score));
+            }
+        }
+
+        Hit[] hits = best.toArray(new Hit[0]);
+        Arrays.sort(hits, Collections.reverseOrder());
+        List<Long> result = new ArrayList<>(hits.length);
+        for (Hit hit : hits) {
+            result.add(keys[hit.doc]);
+        }
+        return result;
+    }
+
+    private void addDoc(long key, Map<String, Integer> termFreqs) {
+        int doc = maxDoc++;
+        ensureCapacity(maxDoc);
+        Postings[] terms = new Postings[termFreqs.size()];
+        int[] freqs = new int[termFreqs.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            Postings list = postings.computeIfAbsent(entry.getKey(), Postings::new);
+            int tf = entry.getValue();
+            list.add(doc, tf);
+            terms[i] = list;
+            freqs[i] = tf;
+            length += tf;
+            i++;
+        }
+        keys[doc] = key;
+        lengths[doc] = length;
+        docTerms[doc] = terms;
+        docFreqs[doc] = freqs;
+        docsByKey.put(key, doc);
+        liveDocs++;
+        totalLength += length;
+    }
+
+    private void removeDoc(long key) {
+        Integer doc = docsByKey.remove(key);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        for (Postings list : docTerms[doc]) {
+            if (--list.liveCount == 0) {
+                postings.remove(list.term, list);
+            }
+        }
+        liveDocs--;
+        totalLength -= lengths[doc];
+    }
+
+    private void compactIfNeeded() {
+        if (maxDoc < MIN_COMPACT_DOCS || maxDoc - liveDocs <= maxDoc / 2) {
+            return;
+        }
+        int capacity = Math.max(64, liveDocs * 2);
+        Map<String, Postings> rebuilt = new HashMap<>(postings.size() * 2);
+        long[] newKeys = new long[capacity];
+        int[] newLengths = new int[capacity];
+        Postings[][] newDocTerms = new Postings[capacity][];
+        int[][] newDocFreqs = new int[capacity][];
+
+        int next = 0;
+        for (int doc = deleted.nextClearBit(0); doc < maxDoc; doc = deleted.nextClearBit(doc + 1)) {
+            Postings[] terms = docTerms[doc];
+            int[] freqs = docFreqs[doc];
+            Postings[] newTerms = new Postings[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                Postings list = rebuilt.computeIfAbsent(terms[i].term, Postings::new);
+                list.add(next, freqs[i]);
+                newTerms[i] = list;
+            }
+            newKeys[next] = keys[doc];
+            newLengths[next] = lengths[doc];
+            newDocTerms[next] = newTerms;
+            newDocFreqs[next] = freqs;
+            docsByKey.put(keys[doc], next);
+            next++;
+        }
+
+        postings = rebuilt;
+        keys = newKeys;
+        lengths = newLengths;
+        docTerms = newDocTerms;
+        docFreqs = newDocFreqs;
+        deleted = new BitSet();
+        maxDoc = next;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        lengths = Arrays.copyOf(lengths, newCapacity);
+        docTerms = Arrays.copyOf(docTerms, newCapacity);
+        docFreqs = Arrays.copyOf(docFreqs, newCapacity);
+    }
+
+    private static final class Postings {
+        private final String term;
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+        // Number of postings that point at live documents
+        private int liveCount;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            liveCount++;
+        }
+    }
+
+    private static final class TermCursor {
+        private final Postings postings;
+        private final float weight;
+        private int position;
+
+        private TermCursor(Postings postings, float weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+
+        private boolean hasNext() {
+            return position < postings.size;
+        }
+
+        private int doc() {
+            return postings.docs[position];
+        }
+
+        private int freq() {
+            return postings.freqs[position];
+        }
+
+        private void advance() {
+            position++;
+        }
+    }
+
+    private static final class Hit implements Comparable<Hit> {
+        private final int doc;
+        private final float score;
+
+        private Hit(int doc, float score) {
+            this.doc = doc;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Float.compare(score, other.score);
+            // On equal scores the older document ranks higher
+            return byScore != 0 ? byScore : Integer.compare(other.doc, doc);
+        }
+    }
+}
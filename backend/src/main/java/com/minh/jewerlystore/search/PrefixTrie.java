@@ -0,0 +1,210 @@
+package com.minh.jewerlystore.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Compressed (radix) prefix trie mapping keys to weighted display strings. Every node stores the
+ * best weight found in its subtree, so a top-K lookup expands nodes best-first and stops as soon
+ * as K completions are found instead of walking every key under the prefix.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class PrefixTrie {
+    private Node root = new Node("");
+
+    /**
+     * Adds weight to a display string under a key; a negative delta takes weight away and drops
+     * the display string once its weight reaches zero.
+     */
+    public void add(String key, String display, long delta) {
+        if (!key.isEmpty() && delta != 0) {
+            update(root, key, 0, display, delta);
+        }
+    }
+
+    public void clear() {
+        root = new Node("");
+    }
+
+    /**
+     * @return up to limit distinct display strings whose key starts with prefix, heaviest first
+     */
+    public List<String> topK(String prefix, int limit) {
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> results = new LinkedHashSet<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start, start.best, false));
+        while (!queue.isEmpty() && results.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node;
+            if (candidate.terminal) {
+                results.add(node.display);
+                continue;
+            }
+            if (node.display != null) {
+                queue.add(new Candidate(node, node.weight(), true));
+            }
+            for (Node child : node.children.values()) {
+                queue.add(new Candidate(child, child.best, false));
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            String rest = prefix.substring(i);
+            if (rest.length() <= child.label.length()) {
+                return child.label.startsWith(rest) ? child : null;
+            }
+            if (!rest.startsWith(child.label)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private void update(Node node, String key, int i, String display, long delta) {
+        if (i == key.length()) {
+            node.addDisplay(display, delta);
+            node.recomputeBest();
+            return;
+        }
+        char first = key.charAt(i);
+        Node child = node.children.get(first);
+        if (child == null) {
+            if (delta < 0) {
+                return;
+            }
+            child = new Node(key.substring(i));
+            node.children.put(first, child);
+            update(child, key, key.length(), display, delta);
+            node.recomputeBest();
+            return;
+        }
+
+        int common = commonPrefixLength(child.label, key, i);
+        if (common < child.label.length()) {
+            if (delta < 0) {
+                return;
+            }
+            // The key leaves the edge part way along; split it at the divergence point
+            Node split = new Node(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.children.put(child.label.charAt(0), child);
+            split.best = child.best;
+            node.children.put(first, split);
+            child = split;
+        }
+        update(child, key, i + common, display, delta);
+
+        if (child.display == null && child.children.isEmpty()) {
+            node.children.remove(first);
+        } else if (child.display == null && child.children.size() == 1) {
+            // Merge a pass-through node into its only child to keep the trie compressed
+            Node grandchild = child.children.values().iterator().next();
+            grandchild.label = child.label + grandchild.label;
+            node.children.put(first, grandchild);
+        }
+        node.recomputeBest();
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        // Display strings stored at this key with their weights; the heaviest one is shown
+        private Map<String, Long> displays;
+        private String display;
+        private long best;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private long weight() {
+            return display == null ? 0 : displays.get(display);
+        }
+
+        private void addDisplay(String value, long delta) {
+            if (displays == null) {
+                if (delta < 0) {
+                    return;
+                }
+                displays = new HashMap<>(2);
+            }
+            long weight = displays.getOrDefault(value, 0L) + delta;
+            if (weight > 0) {
+                displays.put(value, weight);
+            } else {
+                displays.remove(value);
+            }
+            display = null;
+            for (Map.Entry<String, Long> entry : displays.entrySet()) {
+                if (display == null || entry.getValue() > displays.get(display)) {
+                    display = entry.getKey();
+                }
+            }
+            if (display == null) {
+                displays = null;
+            }
+        }
+
+        private void recomputeBest() {
+            long max = weight();
+            for (Node child : children.values()) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        private final Node node;
+        private final long weight;
+        // True once the node's own display string is being offered rather than its subtree
+        private final boolean terminal;
+
+        private Candidate(Node node, long weight, boolean terminal) {
+            this.node = node;
+            this.weight = weight;
+            this.terminal = terminal;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byWeight = Long.compare(other.weight, weight);
+            if (byWeight != 0) {
+                return byWeight;
+            }
+            // A finished completion beats a subtree of equal weight, so shorter keys come first
+            return Boolean.compare(other.terminal, terminal);
+        }
+    }
+}
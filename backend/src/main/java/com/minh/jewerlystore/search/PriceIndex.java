@@ -0,0 +1,398 @@
+package com.minh.jewerlystore.search;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.entity.Product;
+
+/**
+ * Product ids sorted by price. Prices are stored as {@code long} minor units (cents) in one
+ * array with the ids in a parallel array, so a range query is two binary searches and a copy
+ * of the slice between them.
+ *
+ * Readers use an immutable snapshot without locking. A write only records the new price by id
+ * and marks the snapshot stale; the next read merges every change recorded since into a new
+ * snapshot in one pass. A burst of price and stock updates between two searches therefore costs
+ * one rebuild instead of one array copy each, and a write never scans the arrays.
+ *
+ * Used by the facet search for its price range and by the plain search when price is its only
+ * filter and its sort order.
+ */
+@Component
+public class PriceIndex implements ProductIndex {
+    private static final int SCALE = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Snapshot EMPTY = new Snapshot(new long[0], new long[0]);
+    // Range bounds outside these match everything or nothing, whatever their exact value
+    private static final BigDecimal MIN_BOUND = BigDecimal.valueOf(Long.MIN_VALUE, SCALE);
+    private static final BigDecimal MAX_BOUND = BigDecimal.valueOf(Long.MAX_VALUE, SCALE);
+
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile boolean stale;
+    private volatile boolean ready;
+    // Current price of every indexed product; during a full load the only copy until it completes
+    private final PriceTable prices = new PriceTable();
+    // Changes not yet merged into the snapshot: new price by id, NONE for a removed product
+    private final PriceTable pending = new PriceTable();
+    private boolean loading;
+
+    @Override
+    public synchronized void index(Product product) {
+        long price = toMinorUnits(product.getPrice(), RoundingMode.HALF_UP);
+        long previous = prices.put(product.getId(), price);
+        if (loading || previous == price) {
+            return;
+        }
+        pending.put(product.getId(), price);
+        stale = true;
+    }
+
+    @Override
+    public synchronized void remove(Long productId) {
+        if (prices.remove(productId) == PriceTable.NONE || loading) {
+            return;
+        }
+        pending.put(productId, PriceTable.NONE);
+        stale = true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        ready = false;
+        loading = true;
+        prices.clear();
+        pending.clear();
+        stale = false;
+        snapshot = EMPTY;
+    }
+
+    @Override
+    public synchronized void loadCompleted() {
+        if (!loading) {
+            return;
+        }
+        long[] sortedIds = new long[prices.size()];
+        long[] sortedPrices = new long[sortedIds.length];
+        prices.copyTo(sortedIds, sortedPrices);
+        sort(sortedPrices, sortedIds, sortedIds.length);
+        snapshot = new Snapshot(sortedPrices, sortedIds);
+        loading = false;
+        ready = true;
+    }
+
+    /**
+     * @return whether a full load has completed and the index holds every product
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param minPrice inclusive lower bound, null for unbounded
+     * @param maxPrice inclusive upper bound, null for unbounded
+     * @return ids of products priced within the range, cheapest first
+     */
+    public long[] idsInRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        Snapshot current = current();
+        int from = current.from(minPrice);
+        int to = current.to(maxPrice);
+        return from < to ? Arrays.copyOfRange(current.ids, from, to) : new long[0];
+    }
+
+    /**
+     * @param limit      the most ids to return
+     * @param descending most expensive first instead of cheapest first; equal prices then come
+     *                   in descending id order
+     * @return ids of products priced within the range, ordered by price and then id
+     */
+    public List<Long> idsInRange(BigDecimal minPrice, BigDecimal maxPrice, int limit, boolean descending) {
+        Snapshot current = current();
+        int from = current.from(minPrice);
+        int to = current.to(maxPrice);
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, to - from)));
+        if (descending) {
+            for (int i = to - 1; i >= from && ids.size() < limit; i--) {
+                ids.add(current.ids[i]);
+            }
+        } else {
+            for (int i = from; i < to && ids.size() < limit; i++) {
+                ids.add(current.ids[i]);
+            }
+        }
+        return ids;
+    }
+
+    private Snapshot current() {
+        return stale ? merge() : snapshot;
+    }
+
+    // Drops the stale entries of changed products and merges their new prices, sorted, into the
+    // snapshot in one pass
+    private synchronized Snapshot merge() {
+        if (!stale) {
+            return snapshot;
+        }
+        Snapshot current = snapshot;
+        long[] keptPrices = new long[current.ids.length];
+        long[] keptIds = new long[current.ids.length];
+        int kept = 0;
+        for (int i = 0; i < current.ids.length; i++) {
+            if (!pending.contains(current.ids[i])) {
+                keptPrices[kept] = current.prices[i];
+                keptIds[kept] = current.ids[i];
+                kept++;
+            }
+        }
+        long[] addedIds = new long[pending.size()];
+        long[] addedPrices = new long[addedIds.length];
+        pending.copyTo(addedIds, addedPrices);
+        int added = 0;
+        for (int i = 0; i < addedIds.length; i++) {
+            if (addedPrices[i] != PriceTable.NONE) {
+                addedPrices[added] = addedPrices[i];
+                addedIds[added] = addedIds[i];
+                added++;
+            }
+        }
+        sort(addedPrices, addedIds, added);
+
+        long[] mergedPrices = new long[kept + added];
+        long[] mergedIds = new long[kept + added];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedIds.length; k++) {
+            if (j == added || (i < kept && before(keptPrices[i], keptIds[i], addedPrices[j], addedIds[j]))) {
+                mergedPrices[k] = keptPrices[i];
+                mergedIds[k] = keptIds[i++];
+            } else {
+                mergedPrices[k] = addedPrices[j];
+                mergedIds[k] = addedIds[j++];
+            }
+        }
+        pending.clear();
+        snapshot = new Snapshot(mergedPrices, mergedIds);
+        stale = false;
+        return snapshot;
+    }
+
+    private static long toMinorUnits(BigDecimal price, RoundingMode roundingMode) {
+        return price.setScale(SCALE, roundingMode).unscaledValue().longValueExact();
+    }
+
+    // Compared before converting, so a bound like 1e30 neither overflows nor builds a huge number
+    private static long boundToMinorUnits(BigDecimal bound, RoundingMode roundingMode) {
+        if (bound.compareTo(MIN_BOUND) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        if (bound.compareTo(MAX_BOUND) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        return toMinorUnits(bound, roundingMode);
+    }
+
+    private static boolean before(long price, long id, long otherPrice, long otherId) {
+        return price < otherPrice || (price == otherPrice && id < otherId);
+    }
+
+    // Sorts the first n entries of both arrays by price and then id. A bottom-up merge sort, as the
+    // JDK has no sort for parallel primitive arrays
+    private static void sort(long[] prices, long[] ids, int n) {
+        long[] fromPrices = prices;
+        long[] fromIds = ids;
+        long[] toPrices = new long[n];
+        long[] toIds = new long[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int middle = Math.min(low + width, n);
+                int high = Math.min(low + 2 * width, n);
+                int i = low;
+                int j = middle;
+                for (int k = low; k < high; k++) {
+                    if (j == high || (i < middle && before(fromPrices[i], fromIds[i], fromPrices[j], fromIds[j]))) {
+                        toPrices[k] = fromPrices[i];
+                        toIds[k] = fromIds[i++];
+                    } else {
+                        toPrices[k] = fromPrices[j];
+                        toIds[k] = fromIds[j++];
+                    }
+                }
+            }
+            long[] swapPrices = fromPrices;
+            long[] swapIds = fromIds;
+            fromPrices = toPrices;
+            fromIds = toIds;
+            toPrices = swapPrices;
+            toIds = swapIds;
+        }
+        if (fromPrices != prices) {
+            System.arraycopy(fromPrices, 0, prices, 0, n);
+            System.arraycopy(fromIds, 0, ids, 0, n);
+        }
+    }
+
+    private static final class Snapshot {
+        private final long[] prices;
+        private final long[] ids;
+
+        private Snapshot(long[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+
+        private int from(BigDecimal minPrice) {
+            return minPrice == null ? 0 : firstAtLeast(boundToMinorUnits(minPrice, RoundingMode.CEILING));
+        }
+
+        private int to(BigDecimal maxPrice) {
+            return maxPrice == null ? prices.length : firstAbove(boundToMinorUnits(maxPrice, RoundingMode.FLOOR));
+        }
+
+        private int firstAtLeast(long price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int firstAbove(long price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Open-addressing map from product id to price in minor units, without boxing either
+    private static final class PriceTable {
+        // No price converts to this; returned for a missing id and stored in pending for a removal
+        private static final long NONE = Long.MIN_VALUE;
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private long[] values;
+        private int count;
+
+        private PriceTable() {
+            clear();
+        }
+
+        private boolean contains(long key) {
+            return indexOf(key) >= 0;
+        }
+
+        private long put(long key, long value) {
+            if ((count + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            long previous = NONE;
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                count++;
+            } else {
+                previous = values[i];
+            }
+            values[i] = value;
+            return previous;
+        }
+
+        private long remove(long key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return NONE;
+            }
+            long removed = values[i];
+            // Shift later entries of the probe run back so lookups never stop at a hole too early
+            int mask = keys.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            count--;
+            return removed;
+        }
+
+        private int size() {
+            return count;
+        }
+
+        // Copies every entry, in no particular order, into arrays of at least size() entries
+        private void copyTo(long[] keysOut, long[] valuesOut) {
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    keysOut[n] = keys[i];
+                    valuesOut[n++] = values[i];
+                }
+            }
+        }
+
+        // Keeps the arrays unless a full load grew them, as pending is cleared after every merge
+        private void clear() {
+            if (keys == null || keys.length > INITIAL_CAPACITY * 2) {
+                keys = new long[INITIAL_CAPACITY * 2];
+                values = new long[INITIAL_CAPACITY * 2];
+            }
+            Arrays.fill(keys, EMPTY);
+            count = 0;
+        }
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void resize(int newLength) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[newLength];
+            Arrays.fill(keys, EMPTY);
+            values = new long[newLength];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
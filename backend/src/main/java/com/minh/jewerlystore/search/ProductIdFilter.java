@@ -0,0 +1,54 @@
+package com.minh.jewerlystore.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.entity.Product;
+
+/**
+ * Bloom filter of existing product ids, so lookups of ids that were never created can be
+ * answered without a database round trip. A negative answer is certain; a positive one may be
+ * wrong and is checked against the database as before.
+ *
+ * Bloom filters cannot forget keys, so deleted ids keep passing the filter until the next full
+ * reload. Until the first load completes every id passes.
+ */
+@Component
+public class ProductIdFilter implements ProductIndex {
+    private final long expectedProducts;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+
+    public ProductIdFilter(@Value("${catalog.id-filter.expected-products:100000}") long expectedProducts,
+                           @Value("${catalog.id-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedProducts = expectedProducts;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedProducts, falsePositiveRate);
+    }
+
+    @Override
+    public void index(Product product) {
+        filter.add(product.getId());
+    }
+
+    @Override
+    public void remove(Long productId) {
+        // Not supported by a Bloom filter; the database answers for deleted ids
+    }
+
+    @Override
+    public void clear() {
+        ready = false;
+        filter = new BloomFilter(expectedProducts, falsePositiveRate);
+    }
+
+    @Override
+    public void loadCompleted() {
+        ready = true;
+    }
+
+    public boolean mightExist(Long productId) {
+        return !ready || filter.mightContain(productId);
+    }
+}
@@ -0,0 +1,40 @@
+package com.minh.jewerlystore.search;
+
+import java.util.Collection;
+
+import com.minh.jewerlystore.entity.Product;
+
+/**
+ * An in-memory structure derived from the products table. Implementations are filled at
+ * startup and kept current by {@link ProductIndexLoader}.
+ */
+public interface ProductIndex {
+    void index(Product product);
+
+    /**
+     * Indexes a batch of new or changed products. Implementations whose per-product update is
+     * expensive can override this to apply the batch in one step.
+     */
+    default void indexAll(Collection<Product> products) {
+        products.forEach(this::index);
+    }
+
+    void remove(Long productId);
+
+    /**
+     * Called before a full reload; {@link #loadCompleted()} follows once every product has been
+     * passed to {@link #index(Product)}.
+     */
+    void clear();
+
+    default void loadCompleted() {
+    }
+
+    /**
+     * Whether checkout stock decrements need to reach this index. Most indexes only care about
+     * descriptive fields and can skip them.
+     */
+    default boolean tracksStock() {
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.minh.jewerlystore.search;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.event.ProductsImportedEvent;
+import com.minh.jewerlystore.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills every {@link ProductIndex} in one pass over the catalog at startup, then applies
+ * committed product changes to them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexLoader {
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndex> indexes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        indexes.forEach(ProductIndex::clear);
+        long lastId = 0;
+        long count = 0;
+        List<Product> batch;
+        do {
+            batch = productRepository.findByIdGreaterThan(lastId, PageRequest.of(0, BATCH_SIZE, Sort.by("id")));
+            for (Product product : batch) {
+                indexes.forEach(index -> index.index(product));
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            count += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+        indexes.forEach(ProductIndex::loadCompleted);
+        log.info("Loaded {} products into {} catalog indexes", count, indexes.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (ProductIndex index : indexes) {
+            if (event.getType() == ProductChangeType.DELETED) {
+                index.remove(event.getProductId());
+            } else if (event.getType() != ProductChangeType.STOCK_CHANGED || index.tracksStock()) {
+                index.index(event.getProduct());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        indexes.forEach(index -> index.indexAll(event.getProducts()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.minh.jewerlystore.search;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.entity.Product;
+
+/**
+ * Full-text index over product name, brand, category and description. Name matches weigh
+ * the most, description matches the least.
+ *
+ * Fuzzy searches also look up each query token in a BK-tree over the words of product names and
+ * brands, and add the near misses to the query at a lower weight. Each word counts the products
+ * using it and leaves the tree when the last of them is renamed or deleted.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+    private static final int NAME_BOOST = 3;
+    private static final int BRAND_BOOST = 2;
+    private static final int CATEGORY_BOOST = 2;
+    private static final int DESCRIPTION_BOOST = 1;
+
+    // Near misses count for less than the word the customer typed
+    private static final float ONE_EDIT_WEIGHT = 0.5f;
+    private static final float TWO_EDIT_WEIGHT = 0.25f;
+    private static final int MAX_EXPANSIONS = 16;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final BkTree vocabulary = new BkTree();
+    // Vocabulary words of each product, and how many products use each word
+    private final Map<Long, Set<String>> wordsByProduct = new HashMap<>();
+    private final Map<String, Integer> wordCounts = new HashMap<>();
+
+    @Override
+    public synchronized void index(Product product) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        addField(termFreqs, product.getName(), NAME_BOOST);
+        addField(termFreqs, product.getBrand(), BRAND_BOOST);
+        addField(termFreqs, product.getCategory(), CATEGORY_BOOST);
+        addField(termFreqs, product.getDescription(), DESCRIPTION_BOOST);
+        index.put(product.getId(), termFreqs);
+
+        Set<String> words = new HashSet<>(TextAnalyzer.tokenize(product.getName()));
+        words.addAll(TextAnalyzer.tokenize(product.getBrand()));
+        Set<String> previous = wordsByProduct.put(product.getId(), words);
+        for (String word : words) {
+            if (previous == null || !previous.contains(word)) {
+                addWord(word);
+            }
+        }
+        if (previous != null) {
+            for (String word : previous) {
+                if (!words.contains(word)) {
+                    removeWord(word);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long productId) {
+        index.remove(productId);
+        Set<String> previous = wordsByProduct.remove(productId);
+        if (previous != null) {
+            previous.forEach(this::removeWord);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        index.clear();
+        vocabulary.clear();
+        wordsByProduct.clear();
+        wordCounts.clear();
+    }
+
+    private void addWord(String word) {
+        if (wordCounts.merge(word, 1, Integer::sum) == 1) {
+            vocabulary.add(word);
+        }
+    }
+
+    private void removeWord(String word) {
+        if (wordCounts.merge(word, -1, Integer::sum) == 0) {
+            wordCounts.remove(word);
+            vocabulary.remove(word);
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String token : TextAnalyzer.tokenize(query)) {
+            terms.put(token, 1f);
+        }
+        return index.search(terms, limit);
+    }
+
+    public List<Long> fuzzySearch(String query, int limit) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String token : TextAnalyzer.tokenize(query)) {
+            terms.put(token, 1f);
+            int maxEdits = maxEdits(token);
+            if (maxEdits == 0) {
+                continue;
+            }
+            // Drop words no product has before capping, so dead words never crowd out live ones
+            List<BkTree.Match> matches = vocabulary.search(token, maxEdits).stream()
+                    .filter(match -> match.getDistance() > 0 && index.hasTerm(match.getTerm()))
+                    .sorted(Comparator.comparingInt(BkTree.Match::getDistance))
+                    .limit(MAX_EXPANSIONS)
+                    .collect(Collectors.toList());
+            for (BkTree.Match match : matches) {
+                float weight = match.getDistance() == 1 ? ONE_EDIT_WEIGHT : TWO_EDIT_WEIGHT;
+                terms.merge(match.getTerm(), weight, Math::max);
+            }
+        }
+        return index.search(terms, limit);
+    }
+
+    // Short words get fewer edits; two edits from a four-letter word matches almost anything
+    private static int maxEdits(String token) {
+        if (token.length() < 4 || token.chars().allMatch(Character::isDigit)) {
+            return 0;
+        }
+        return token.length() < 8 ? 1 : 2;
+    }
+
+    private static void addField(Map<String, Integer> termFreqs, String text, int boost) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            termFreqs.merge(token, boost, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.minh.jewerlystore.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.minh.jewerlystore.entity.OrderItem;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
+import com.minh.jewerlystore.payload.dto.ProductSalesDTO;
+import com.minh.jewerlystore.repository.OrderRepository;
+
+/**
+ * Typeahead completions for product names and brands. Names are indexed from the start of every
+ * word, so "ring" completes both "Ring Set" and "Diamond Ring". A completion weighs one plus the
+ * units sold of each product behind it: sales are read from order items on load and added from
+ * the lines of each order placed afterwards. Stock changes play no part, so restocking or an
+ * admin correcting stock never counts as a sale.
+ */
+@Component
+public class SuggestIndex implements ProductIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderRepository orderRepository;
+    private final PrefixTrie trie = new PrefixTrie();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private boolean loading;
+
+    public SuggestIndex(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(product.getId());
+            long unitsSold = previous == null ? 0 : previous.unitsSold;
+            Entry entry = new Entry(product.getName(), product.getBrand(), unitsSold);
+            entries.put(product.getId(), entry);
+            if (!loading) {
+                if (previous != null) {
+                    apply(previous, -1);
+                }
+                apply(entry, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(productId);
+            if (previous != null && !loading) {
+                apply(previous, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            entries.clear();
+            trie.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadCompleted() {
+        lock.writeLock().lock();
+        try {
+            for (ProductSalesDTO sales : orderRepository.sumQuantityByProduct()) {
+                Entry entry = entries.get(sales.productId());
+                if (entry != null) {
+                    entry.unitsSold = sales.unitsSold();
+                }
+            }
+            entries.values().forEach(entry -> apply(entry, 1));
+            loading = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Orders committed while loading are already in the totals loadCompleted reads
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                return;
+            }
+            for (OrderItem item : event.getOrder().getItems()) {
+                Entry entry = entries.get(item.getProduct().getId());
+                if (entry != null) {
+                    apply(entry, -1);
+                    entry.unitsSold += item.getQuantity();
+                    apply(entry, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = String.join(" ", TextAnalyzer.tokenize(prefix));
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Keep a trailing space so "diamond " only completes the next word
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key += " ";
+        }
+        lock.readLock().lock();
+        try {
+            return trie.topK(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Entry entry, int sign) {
+        long weight = sign * (1 + entry.unitsSold);
+        List<String> words = TextAnalyzer.tokenize(entry.name);
+        for (int i = 0; i < words.size(); i++) {
+            trie.add(String.join(" ", words.subList(i, words.size())), entry.name, weight);
+        }
+        if (entry.brand != null) {
+            trie.add(String.join(" ", TextAnalyzer.tokenize(entry.brand)), entry.brand, weight);
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final String brand;
+        private long unitsSold;
+
+        private Entry(String name, String brand, long unitsSold) {
+            this.name = name;
+            this.brand = brand;
+            this.unitsSold = unitsSold;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.minh.jewerlystore.service;
 
+import java.util.List;
+
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest;
 import com.minh.jewerlystore.payload.response.CartResponse;
 
 public interface CartService {
@@ -8,5 +11,6 @@ public interface CartService {
     CartResponse addToCart(User user, Long productId, Integer quantity);
     CartResponse updateCartItemQuantity(User user, Long productId, Integer quantity);
     CartResponse removeFromCart(User user, Long productId);
+    CartResponse applyOperations(User user, List<CartOperationsRequest.Operation> operations);
     void clearCart(User user);
 } 
\ No newline at end of file
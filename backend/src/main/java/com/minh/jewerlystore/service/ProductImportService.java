@@ -0,0 +1,24 @@
+package com.minh.jewerlystore.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.minh.jewerlystore.payload.response.ProductImportResponse;
+
+public interface ProductImportService {
+    /**
+     * Creates a product for every valid row of a CSV or NDJSON file. Rows that fail validation
+     * or cannot be inserted are skipped and listed in the response.
+     */
+    default ProductImportResponse importProducts(MultipartFile file) throws IOException {
+        return importProducts(file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+    }
+
+    /**
+     * Imports a file sent as the raw request body. The format is taken from the file name if
+     * there is one, otherwise from the content type.
+     */
+    ProductImportResponse importProducts(InputStream content, String filename, String contentType) throws IOException;
+}
@@ -1,18 +1,37 @@
 package com.minh.jewerlystore.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.web.multipart.MultipartFile;
 
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.request.AvailabilityRequest;
+import com.minh.jewerlystore.payload.response.AvailabilityResponse;
+import com.minh.jewerlystore.payload.response.FacetSearchResponse;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
+import com.minh.jewerlystore.payload.response.ProductChangesResponse;
+import com.minh.jewerlystore.payload.response.ProductPageResponse;
 
 public interface ProductService {
     List<Product> getAllProducts();
+    ProductPageResponse getProducts(String cursor, Integer size, String sortBy, String sortDir);
     Product getProductById(Long id);
-    List<Product> searchProducts(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand, String color);
-    List<Product> searchByName(String name);
+    Optional<Product> findProductById(Long id);
+    ProductBatchResponse getProductsByIds(List<Long> ids);
+    AvailabilityResponse checkAvailability(AvailabilityRequest request);
+    ProductChangesResponse getChanges(Long since, Integer limit);
+    List<Product> getProductsByCategory(String category);
+    List<Product> searchProducts(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand, String color,
+            String sortBy, String sortDir, Integer limit);
+    List<Product> searchByName(String name, boolean fuzzy);
+    List<String> suggest(String prefix, Integer limit);
+    FacetSearchResponse searchWithFacets(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand, String color, Integer limit);
     Product createProduct(Product product);
     Product updateProduct(Long id, Product product);
     void deleteProduct(Long id);
-}
\ No newline at end of file
+    void exportProducts(OutputStream outputStream) throws IOException;
+}
@@ -1,139 +1,234 @@
 package com.minh.jewerlystore.service.impl;
 
 import java.math.BigDecimal;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import com.minh.jewerlystore.entity.Cart;
-import com.minh.jewerlystore.entity.CartItem;
-import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.cart.CartEditor;
+import com.minh.jewerlystore.cart.CartLine;
+import com.minh.jewerlystore.cart.CartSnapshot;
+import com.minh.jewerlystore.cart.CartStore;
+import com.minh.jewerlystore.config.AppConstants;
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest.Operation;
 import com.minh.jewerlystore.payload.response.CartResponse;
 import com.minh.jewerlystore.payload.response.CartResponse.CartItemResponse;
-import com.minh.jewerlystore.repository.CartRepository;
-import com.minh.jewerlystore.repository.ProductRepository;
 import com.minh.jewerlystore.service.CartService;
+import com.minh.jewerlystore.service.ProductService;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class CartServiceImpl implements CartService {
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final ProductService productService;
 
     @Override
     public CartResponse getCart(User user) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createNewCart(user));
-        return convertToCartResponse(cart);
+        requireUser(user);
+        return convertToCartResponse(cartStore.update(user, cart -> cart.create()));
     }
 
     @Override
     public CartResponse addToCart(User user, Long productId, Integer quantity) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createNewCart(user));
-        Product product = getProductById(productId);
-
-        CartItem existingItem = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst()
-                .orElse(null);
-
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-        } else {
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setProduct(product);
-            newItem.setQuantity(quantity);
-            cart.getItems().add(newItem);
+        requireUser(user);
+        if (quantity == null || quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
         }
-
-        cart = cartRepository.save(cart);
-        return convertToCartResponse(cart);
+        requireProduct(productId);
+
+        CartSnapshot snapshot = cartStore.update(user, cart -> {
+            cart.create();
+            CartLine existing = cart.line(productId);
+            cart.put(productId, existing == null ? quantity : existing.quantity() + quantity);
+        });
+        return convertToCartResponse(snapshot);
     }
 
     @Override
-    public CartResponse updateCartItemQuantity(User user, Long productId, Integer quantity) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new EntityNotFoundException("Cart not found"));
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Product not found in cart"));
-
-        if (quantity <= 0) {
-            cart.getItems().remove(item);
-        } else {
-            item.setQuantity(quantity);
-        }
+    public CartResponse updateCartItemQuantity(User user, Long itemId, Integer quantity) {
+        requireUser(user);
+        CartSnapshot snapshot = cartStore.update(user, cart -> {
+            if (!cart.exists()) {
+                throw new EntityNotFoundException("Cart not found");
+            }
+            CartLine line = cart.item(itemId);
+            if (line == null) {
+                throw new EntityNotFoundException("Product not found in cart");
+            }
+            if (quantity == null || quantity <= 0) {
+                cart.remove(line.productId());
+            } else {
+                cart.put(line.productId(), quantity);
+            }
+        });
+        return convertToCartResponse(snapshot);
+    }
 
-        cart = cartRepository.save(cart);
-        return convertToCartResponse(cart);
+    @Override
+    public CartResponse removeFromCart(User user, Long itemId) {
+        requireUser(user);
+        CartSnapshot snapshot = cartStore.update(user, cart -> {
+            if (!cart.exists()) {
+                throw new EntityNotFoundException("Cart not found for user");
+            }
+            CartLine line = cart.item(itemId);
+            if (line == null) {
+                throw new EntityNotFoundException("Product not found in user's cart");
+            }
+            cart.remove(line.productId());
+        });
+        return convertToCartResponse(snapshot);
     }
 
     @Override
-    public CartResponse removeFromCart(User user, Long productId) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new EntityNotFoundException("Cart not found for user"));
-        
-        CartItem itemToRemove = cart.getItems().stream()
-                .filter(item -> item.getId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Product not found in user's cart"));
-
-        cart.getItems().remove(itemToRemove);
-        cart = cartRepository.save(cart);
-        return convertToCartResponse(cart);
+    public CartResponse applyOperations(User user, List<Operation> operations) {
+        requireUser(user);
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one cart operation is required");
+        }
+        if (operations.size() > AppConstants.MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + AppConstants.MAX_BATCH_IDS + " cart operations can be applied at once");
+        }
+        List<Long> added = new ArrayList<>();
+        for (Operation operation : operations) {
+            validate(operation);
+            if (operation.getOp() != CartOperationsRequest.Type.REMOVE && operation.getQuantity() > 0) {
+                added.add(operation.getProductId());
+            }
+        }
+        List<Long> missing = added.isEmpty() ? List.of() : productService.getProductsByIds(added).getMissing();
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException("Product not found with id: " + missing.get(0));
+        }
+
+        CartSnapshot snapshot = cartStore.update(user, cart -> {
+            // Work out the new quantities first so the cart is only touched once nothing can fail
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (Operation operation : operations) {
+                Long productId = operation.getProductId();
+                int current = quantities.computeIfAbsent(productId,
+                        id -> cart.line(id) == null ? 0 : cart.line(id).quantity());
+                quantities.put(productId, switch (operation.getOp()) {
+                    case ADD -> current + operation.getQuantity();
+                    case SET -> operation.getQuantity();
+                    case REMOVE -> 0;
+                });
+            }
+            cart.create();
+            quantities.forEach((productId, quantity) -> {
+                if (quantity > 0) {
+                    cart.put(productId, quantity);
+                } else {
+                    cart.remove(productId);
+                }
+            });
+        });
+        return convertToCartResponse(snapshot);
     }
 
     @Override
     public void clearCart(User user) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new EntityNotFoundException("Cart not found"));
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        requireUser(user);
+        cartStore.update(user, cart -> {
+            if (!cart.exists()) {
+                throw new EntityNotFoundException("Cart not found");
+            }
+            cart.clear();
+        });
+    }
+
+    /**
+     * Empties the cart of a user whose order has committed. A rolled-back order leaves the cart as it
+     * was, so the user can try again.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        cartStore.update(event.getUser(), CartEditor::clear);
     }
 
-    private Cart createNewCart(User user) {
+    private void requireUser(User user) {
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null when creating cart");
         }
-        Cart cart = new Cart();
-        cart.setUser(user);
-        return cartRepository.save(cart);
     }
 
-    private Product getProductById(Long productId) {
-        return productRepository.findById(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+    private void validate(Operation operation) {
+        if (operation == null || operation.getOp() == null || operation.getProductId() == null) {
+            throw new IllegalArgumentException("Each cart operation needs an op and a productId");
+        }
+        Integer quantity = operation.getQuantity();
+        switch (operation.getOp()) {
+            case ADD -> {
+                if (quantity == null || quantity < 1) {
+                    throw new IllegalArgumentException("Quantity must be at least 1");
+                }
+            }
+            case SET -> {
+                if (quantity == null || quantity < 0) {
+                    throw new IllegalArgumentException("Quantity must not be negative");
+                }
+            }
+            case REMOVE -> {
+            }
+        }
+    }
+
+    private void requireProduct(Long productId) {
+        if (productService.findProductById(productId).isEmpty()) {
+            throw new EntityNotFoundException("Product not found with id: " + productId);
+        }
     }
 
-    private CartResponse convertToCartResponse(Cart cart) {
+    private CartResponse convertToCartResponse(CartSnapshot cart) {
+        Map<Long, ProductDetailDTO> products = new HashMap<>();
+        List<CartLine> lines = cart.lines();
+        for (int from = 0; from < lines.size(); from += AppConstants.MAX_BATCH_IDS) {
+            List<Long> ids = lines.subList(from, Math.min(lines.size(), from + AppConstants.MAX_BATCH_IDS)).stream()
+                    .map(CartLine::productId)
+                    .toList();
+            productService.getProductsByIds(ids).getProducts().forEach(product -> products.put(product.id(), product));
+        }
+
+        List<CartItemResponse> items = new ArrayList<>(lines.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartLine line : lines) {
+            // Products deleted since they were added drop out of the cart view
+            ProductDetailDTO product = products.get(line.productId());
+            if (product == null) {
+                continue;
+            }
+            CartItemResponse item = convertToCartItemResponse(line, product);
+            items.add(item);
+            total = total.add(item.getProductPrice().multiply(new BigDecimal(line.quantity())));
+        }
+
         CartResponse response = new CartResponse();
-        response.setId(cart.getId());
-        response.setItems(cart.getItems().stream()
-                .map(this::convertToCartItemResponse)
-                .collect(Collectors.toList()));
-        response.setTotalAmount(cart.getItems().stream()
-                .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        response.setId(cart.cartId());
+        response.setItems(items);
+        response.setTotalAmount(total);
         return response;
     }
 
-    private CartItemResponse convertToCartItemResponse(CartItem item) {
+    private CartItemResponse convertToCartItemResponse(CartLine line, ProductDetailDTO product) {
         CartItemResponse response = new CartItemResponse();
-        response.setId(item.getId());
-        response.setProductId(item.getProduct().getId());
-        response.setProductName(item.getProduct().getName());
-        response.setProductPrice(item.getProduct().getPrice());
-        response.setQuantity(item.getQuantity());
-        response.setImageUrl(item.getProduct().getImageUrl());
+        response.setId(line.itemId());
+        response.setProductId(product.id());
+        response.setProductName(product.name());
+        response.setProductPrice(product.price());
+        response.setQuantity(line.quantity());
+        response.setImageUrl(product.imageUrl());
         return response;
     }
-} 
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,6 +13,9 @@ import com.minh.jewerlystore.entity.OrderItem;
 import com.minh.jewerlystore.entity.OrderStatus;
 import com.minh.jewerlystore.entity.Product;
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
 import com.minh.jewerlystore.exception.InsufficientStockException;
 import com.minh.jewerlystore.payload.request.CheckoutRequest;
 import com.minh.jewerlystore.payload.response.CartResponse;
@@ -30,6 +34,7 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Order createOrder(User user, CheckoutRequest checkoutRequest) {
@@ -69,12 +74,18 @@ public class OrderServiceImpl implements OrderService {
 
         BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartResponse.CartItemResponse cartItem : cart.getItems()) {
+            // Update product stock; the check above can be overtaken by a concurrent checkout, this one cannot
+            if (productRepository.decrementStock(cartItem.getProductId(), cartItem.getQuantity()) == 0) {
+                Product product = productRepository.findById(cartItem.getProductId())
+                        .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + cartItem.getProductId()));
+                throw new InsufficientStockException(
+                    String.format("Insufficient stock for product '%s'. Available: %d, Requested: %d",
+                        product.getName(), product.getStockQuantity(), cartItem.getQuantity())
+                );
+            }
             Product product = productRepository.findById(cartItem.getProductId())
                     .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + cartItem.getProductId()));
-            
-            // Update product stock
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), product, ProductChangeType.STOCK_CHANGED));
             
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -89,7 +100,8 @@ public class OrderServiceImpl implements OrderService {
         order.setTotalAmount(totalAmount);
 
         Order savedOrder = orderRepository.save(order);
-        cartService.clearCart(user);
+        // The cart is emptied once this transaction commits; see CartServiceImpl.onOrderPlaced
+        eventPublisher.publishEvent(new OrderPlacedEvent(user, savedOrder));
         
         return savedOrder;
     }
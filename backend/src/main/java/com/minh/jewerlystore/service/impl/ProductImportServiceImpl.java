@@ -0,0 +1,235 @@
+package com.minh.jewerlystore.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductsImportedEvent;
+import com.minh.jewerlystore.importer.ImportRecord;
+import com.minh.jewerlystore.importer.ImportRecordReader;
+import com.minh.jewerlystore.importer.SizeLimitedInputStream;
+import com.minh.jewerlystore.payload.response.ProductImportResponse;
+import com.minh.jewerlystore.repository.ProductRepository;
+import com.minh.jewerlystore.service.ProductImportService;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams an upload record by record and inserts valid rows in chunks, each in its own
+ * transaction. With sequence ids and {@code hibernate.jdbc.batch_size} set, a chunk goes to the
+ * database as a few batched INSERT statements instead of one round trip per row.
+ *
+ * Multipart uploads are bounded by the application-wide multipart limit. Large feeds are sent as
+ * the raw request body instead, which this service caps at {@code catalog.import.max-size}; a
+ * feed that goes over fails with 413 and keeps the chunks committed before that point.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+    private static final int MAX_NAME_LENGTH = 255;
+    // Every row needs these; a CSV whose header lacks one is rejected as a whole
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "category");
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final long maxBytes;
+
+    public ProductImportServiceImpl(ProductRepository productRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    EntityManager entityManager,
+                                    ApplicationEventPublisher eventPublisher,
+                                    ObjectMapper objectMapper,
+                                    @Value("${catalog.import.chunk-size:500}") int chunkSize,
+                                    @Value("${catalog.import.max-errors:1000}") int maxErrors,
+                                    @Value("${catalog.import.max-size:50MB}") DataSize maxSize) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream content, String filename, String contentType) throws IOException {
+        boolean csv = isCsv(filename, contentType);
+        ProductImportResponse report = new ProductImportResponse();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new SizeLimitedInputStream(content, maxBytes), StandardCharsets.UTF_8))) {
+            ImportRecordReader records = csv
+                    ? ImportRecordReader.csv(reader, REQUIRED_COLUMNS)
+                    : ImportRecordReader.ndjson(reader, objectMapper);
+            ImportRecord record;
+            while ((record = records.next()) != null) {
+                report.setTotalRows(report.getTotalRows() + 1);
+                if (record.getError() != null) {
+                    addError(report, record.getLine(), record.getError());
+                    continue;
+                }
+                try {
+                    chunk.add(toProduct(record.getFields()));
+                    chunkLines.add(record.getLine());
+                } catch (IllegalArgumentException e) {
+                    addError(report, record.getLine(), e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    saveChunk(chunk, chunkLines, report);
+                }
+            }
+        }
+        saveChunk(chunk, chunkLines, report);
+        log.info("Imported {} of {} products from {}", report.getImported(), report.getTotalRows(),
+                filename == null ? "request body" : filename);
+        return report;
+    }
+
+    private void saveChunk(List<Product> chunk, List<Long> lines, ProductImportResponse report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            insert(new ArrayList<>(chunk));
+            report.setImported(report.getImported() + chunk.size());
+        } catch (DataAccessException e) {
+            // One bad row rolls back the whole chunk; retry row by row to find it
+            for (int i = 0; i < chunk.size(); i++) {
+                Product product = chunk.get(i);
+                product.setId(null);
+                product.setVersion(null);
+                try {
+                    insert(List.of(product));
+                    report.setImported(report.getImported() + 1);
+                } catch (DataAccessException rowFailure) {
+                    addError(report, lines.get(i), NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        } finally {
+            // Saved entities are not needed again; keep an open-in-view persistence context from growing
+            entityManager.clear();
+            chunk.clear();
+            lines.clear();
+        }
+    }
+
+    private void insert(List<Product> products) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Product> saved = productRepository.saveAll(products);
+            eventPublisher.publishEvent(new ProductsImportedEvent(saved));
+        });
+    }
+
+    private Product toProduct(Map<String, String> record) {
+        // Column names are matched case-insensitively, e.g. "Price" or "stockquantity"
+        Map<String, String> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        fields.putAll(record);
+        Product product = new Product();
+        product.setName(required(fields, "name"));
+        if (product.getName().length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+        product.setDescription(optional(fields, "description"));
+        product.setPrice(parsePrice(required(fields, "price")));
+        product.setCategory(required(fields, "category"));
+        product.setBrand(optional(fields, "brand"));
+        product.setColor(optional(fields, "color"));
+        product.setStockQuantity(parseStock(optional(fields, "stockQuantity")));
+        product.setImageUrl(optional(fields, "imageUrl"));
+        return product;
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + value);
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        return price;
+    }
+
+    private static Integer parseStock(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int stock;
+        try {
+            stock = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stockQuantity is not a whole number: " + value);
+        }
+        if (stock < 0) {
+            throw new IllegalArgumentException("stockQuantity must not be negative");
+        }
+        return stock;
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = optional(fields, name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private void addError(ProductImportResponse report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ProductImportResponse.RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private static boolean isCsv(String filename, String contentType) {
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        String type = contentType == null ? "" : contentType;
+        if (name.endsWith(".csv") || type.startsWith("text/csv")) {
+            return true;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || type.startsWith("application/x-ndjson")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unsupported import file: upload a .csv or .ndjson file");
+    }
+}
@@ -1,15 +1,64 @@
 package com.minh.jewerlystore.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minh.jewerlystore.cache.ProductCache;
+import com.minh.jewerlystore.cache.SearchResultCache;
+import com.minh.jewerlystore.cache.SearchResultCache.SearchKey;
+import com.minh.jewerlystore.cache.SingleFlight;
+import com.minh.jewerlystore.changefeed.ProductChangeFeed;
+import com.minh.jewerlystore.config.AppConstants;
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.ProductChange;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.mapper.ProductMapper;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.dto.ProductStockDTO;
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+import com.minh.jewerlystore.payload.request.AvailabilityRequest;
+import com.minh.jewerlystore.payload.response.AvailabilityResponse;
+import com.minh.jewerlystore.payload.response.FacetSearchResponse;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
+import com.minh.jewerlystore.payload.response.ProductChangesResponse;
+import com.minh.jewerlystore.payload.response.ProductPageResponse;
 import com.minh.jewerlystore.repository.ProductRepository;
+import com.minh.jewerlystore.repository.ProductSpecifications;
+import com.minh.jewerlystore.search.FacetField;
+import com.minh.jewerlystore.search.FacetIndex;
+import com.minh.jewerlystore.search.PriceIndex;
+import com.minh.jewerlystore.search.ProductIdFilter;
+import com.minh.jewerlystore.search.ProductSearchIndex;
+import com.minh.jewerlystore.search.SuggestIndex;
 import com.minh.jewerlystore.service.ProductService;
+import com.minh.jewerlystore.store.ColumnarProductStore;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 
@@ -17,37 +66,267 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Transactional
 public class ProductServiceImpl implements ProductService {
+    private static final List<String> SEARCH_SORT_FIELDS = List.of("id", "name", "price");
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final SearchResultCache searchResultCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final FacetIndex facetIndex;
+    private final PriceIndex priceIndex;
+    private final SuggestIndex suggestIndex;
+    private final ProductIdFilter productIdFilter;
+    private final ProductChangeFeed productChangeFeed;
+    private final ColumnarProductStore productStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight<Long, Optional<Product>> productLoads = new SingleFlight<>();
+    private final SingleFlight<SearchKey, List<Product>> searchLoads = new SingleFlight<>();
 
     @Override
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProducts(String cursor, Integer size, String sortBy, String sortDir) {
+        boolean byPrice = "price".equalsIgnoreCase(sortBy);
+        if (!byPrice && !"id".equalsIgnoreCase(sortBy)) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy + ". Valid fields are: id, price");
+        }
+        boolean descending = "desc".equalsIgnoreCase(sortDir);
+        if (!descending && !"asc".equalsIgnoreCase(sortDir)) {
+            throw new IllegalArgumentException("Invalid sort direction: " + sortDir + ". Valid directions are: asc, desc");
+        }
+        int pageSize = pageSize(size);
+
+        // Fetch one extra row to find out whether another page exists
+        List<ProductSummaryDTO> rows = fetchPage(cursor, pageSize + 1, byPrice, descending);
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductSummaryDTO> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1), byPrice, descending) : null;
+
+        return new ProductPageResponse(content, content.size(), nextCursor, hasNext);
+    }
+
     @Override
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return findProductById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
     }
 
     @Override
-    public List<Product> searchProducts(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand, String color) {
-        return productRepository.findByFilters(category, minPrice, maxPrice, brand, color);
+    public Optional<Product> findProductById(Long id) {
+        // Ids that were never created are answered without touching the cache or the database
+        if (!productIdFilter.mightExist(id)) {
+            return Optional.empty();
+        }
+        // Once loaded, the columnar store holds the whole catalog and answers without the database
+        if (productStore.isReady()) {
+            return productStore.get(id);
+        }
+        Product cached = productCache.getById(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Concurrent misses for the same id share one database read; each caller gets its own copy
+        Optional<Product> product = productLoads.load(id, () -> {
+            long generation = productCache.generation();
+            Optional<Product> loaded = productRepository.findById(id);
+            loaded.ifPresent(found -> productCache.putById(found, generation));
+            return loaded;
+        });
+        return product.map(ProductMapper::copyOf);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        List<Long> requested = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (requested.size() > AppConstants.MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + AppConstants.MAX_BATCH_IDS + " ids can be requested at once");
+        }
+        List<Long> candidates = requested.stream().filter(productIdFilter::mightExist).collect(Collectors.toList());
+        List<ProductDetailDTO> products = productStore.isReady()
+                ? productStore.getDetails(candidates)
+                : findAllInOrder(candidates).stream().map(ProductMapper::toDetail).collect(Collectors.toList());
+        Set<Long> found = products.stream().map(ProductDetailDTO::id).collect(Collectors.toSet());
+        List<Long> missing = requested.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+        return new ProductBatchResponse(products, missing);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AvailabilityResponse checkAvailability(AvailabilityRequest request) {
+        List<AvailabilityRequest.Line> lines = request.getItems();
+        if (lines.size() > AppConstants.MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + AppConstants.MAX_BATCH_IDS + " items can be checked at once");
+        }
+        // A product listed on several lines must have stock for all of them together, as at checkout
+        Map<Long, Integer> requestedByProduct = new HashMap<>();
+        for (AvailabilityRequest.Line line : lines) {
+            if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() < 1) {
+                throw new IllegalArgumentException("Each item needs a productId and a quantity of at least 1");
+            }
+            requestedByProduct.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+
+        // Stock changes with every order, so it is read from the database rather than the product cache
+        Map<Long, Integer> stockByProduct = new HashMap<>();
+        if (!requestedByProduct.isEmpty()) {
+            for (ProductStockDTO stock : productRepository.findStockQuantities(requestedByProduct.keySet())) {
+                stockByProduct.put(stock.id(), stock.stockQuantity());
+            }
+        }
+
+        List<AvailabilityResponse.LineAvailability> items = new ArrayList<>(lines.size());
+        boolean allAvailable = true;
+        for (AvailabilityRequest.Line line : lines) {
+            Integer stock = stockByProduct.get(line.getProductId());
+            boolean available = stock != null && stock >= requestedByProduct.get(line.getProductId());
+            allAvailable &= available;
+            items.add(new AvailabilityResponse.LineAvailability(line.getProductId(), line.getQuantity(), stock, available));
+        }
+        return new AvailabilityResponse(allAvailable, items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductChangesResponse getChanges(Long since, Integer limit) {
+        // Without a starting point only the current position is returned, to take before a full download
+        if (since == null) {
+            return new ProductChangesResponse(new ArrayList<>(), new ArrayList<>(), productChangeFeed.head(), false);
+        }
+        int requested = limit == null ? Integer.parseInt(AppConstants.CHANGES_PAGE_SIZE) : limit;
+        int pageSize = Math.min(Math.max(requested, 1), AppConstants.MAX_CHANGES_PAGE_SIZE);
+        List<ProductChange> rows = productChangeFeed.read(since, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductChange> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        // Only the last change of each product matters; the product is sent as it is now
+        Map<Long, ProductChangeType> latest = new LinkedHashMap<>();
+        for (ProductChange change : page) {
+            latest.remove(change.getProductId());
+            latest.put(change.getProductId(), change.getType());
+        }
+        List<Long> written = latest.entrySet().stream()
+                .filter(entry -> entry.getValue() != ProductChangeType.DELETED)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        Map<Long, Product> current = new HashMap<>();
+        if (!written.isEmpty()) {
+            productRepository.findAllById(written).forEach(product -> current.put(product.getId(), product));
+        }
+
+        List<ProductDetailDTO> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Long productId : latest.keySet()) {
+            Product product = current.get(productId);
+            if (product != null) {
+                changed.add(ProductMapper.toDetail(product));
+            } else {
+                // Deleted in this page, or after its last write here and the delete is in a later page
+                deleted.add(productId);
+            }
+        }
+        long nextSince = page.isEmpty() ? since : page.get(page.size() - 1).getSequence();
+        return new ProductChangesResponse(changed, deleted, nextSince, hasMore);
     }
 
     @Override
-    public List<Product> searchByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public List<Product> getProductsByCategory(String category) {
+        List<Product> cached = productCache.getByCategory(category);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = productCache.generation();
+        List<Product> products = productRepository.findByCategory(category);
+        productCache.putByCategory(category, products, generation);
+        return products;
+    }
+
+    @Override
+    public List<Product> searchProducts(String category, BigDecimal minPrice, BigDecimal maxPrice, String brand, String color,
+            String sortBy, String sortDir, Integer limit) {
+        // Matched ignoring case, as in getProducts
+        String sortField = SEARCH_SORT_FIELDS.stream()
+                .filter(field -> field.equalsIgnoreCase(sortBy))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid sort field: " + sortBy + ". Valid fields are: "
+                        + String.join(", ", SEARCH_SORT_FIELDS)));
+        Sort.Direction direction = Sort.Direction.fromString(sortDir);
+        // Without a limit every match is returned; only a limit the client asks for is checked
+        int maxResults = limit == null ? Integer.MAX_VALUE : pageSize(limit);
+        SearchKey key = SearchKey.of(category, minPrice, maxPrice, brand, color, sortField, sortDir, maxResults);
+        // Filtered and sorted by price alone: the price index already has the answer in order
+        if (key.category() == null && key.brand() == null && key.color() == null && "price".equals(sortField)
+                && priceIndex.isReady()) {
+            return findAllInOrder(priceIndex.idsInRange(key.minPrice(), key.maxPrice(), maxResults, direction.isDescending()));
+        }
+        List<Long> cachedIds = searchResultCache.get(key);
+        if (cachedIds != null) {
+            return findAllInOrder(cachedIds);
+        }
+
+        // id breaks ties so equal prices/names always come back in the same order
+        Sort sort = "id".equals(sortField) ? Sort.by(direction, "id") : Sort.by(direction, sortField, "id");
+        Specification<Product> spec = ProductSpecifications.withFilters(key.category(), key.minPrice(), key.maxPrice(),
+                key.brand(), key.color());
+        List<Product> products = searchLoads.load(key, () -> {
+            long generation = searchResultCache.generation();
+            List<Product> loaded = productRepository.findBy(spec, query -> query.sortBy(sort).limit(maxResults).all());
+            searchResultCache.put(key, loaded.stream().map(Product::getId).collect(Collectors.toList()), generation);
+            return loaded;
+        });
+        return products.stream().map(ProductMapper::copyOf).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Product> searchByName(String name, boolean fuzzy) {
+        List<Long> ids = fuzzy
+                ? productSearchIndex.fuzzySearch(name, AppConstants.SEARCH_RESULT_LIMIT)
+                : productSearchIndex.search(name, AppConstants.SEARCH_RESULT_LIMIT);
+        return findAllInOrder(ids);
+    }
+
+    @Override
+    public List<String> suggest(String prefix, Integer limit) {
+        int requested = limit == null ? Integer.parseInt(AppConstants.SUGGEST_LIMIT) : limit;
+        return suggestIndex.suggest(prefix, Math.min(Math.max(requested, 1), AppConstants.MAX_SUGGEST_LIMIT));
+    }
+
+    @Override
+    public FacetSearchResponse searchWithFacets(String category, BigDecimal minPrice, BigDecimal maxPrice,
+            String brand, String color, Integer limit) {
+        Map<FacetField, String> filters = new EnumMap<>(FacetField.class);
+        filters.put(FacetField.CATEGORY, category);
+        filters.put(FacetField.BRAND, brand);
+        filters.put(FacetField.COLOR, color);
+        long[] inPriceRange = minPrice == null && maxPrice == null ? null : priceIndex.idsInRange(minPrice, maxPrice);
+        FacetIndex.Result result = facetIndex.query(filters, inPriceRange, pageSize(limit));
+        return new FacetSearchResponse(result.getTotal(), findAllInOrder(result.getIds()), result.getCounts());
     }
 
     @Override
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        // Ids and versions are assigned by the database, never taken from the request
+        product.setId(null);
+        product.setVersion(null);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), savedProduct, ProductChangeType.CREATED));
+        return savedProduct;
     }
 
     @Override
     public Product updateProduct(Long id, Product product) {
-        Product existingProduct = getProductById(id);
+        Product existingProduct = loadProduct(id);
+        // A client that sends the version it read gets a conflict instead of overwriting a newer edit
+        if (product.getVersion() != null && !product.getVersion().equals(existingProduct.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
         existingProduct.setName(product.getName());
         existingProduct.setDescription(product.getDescription());
         existingProduct.setCategory(product.getCategory());
@@ -56,11 +335,134 @@ public class ProductServiceImpl implements ProductService {
         existingProduct.setPrice(product.getPrice());
         existingProduct.setStockQuantity(product.getStockQuantity());
         existingProduct.setImageUrl(product.getImageUrl());
-        return productRepository.save(existingProduct);
+        Product savedProduct = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, savedProduct, ProductChangeType.UPDATED));
+        return savedProduct;
     }
 
     @Override
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        // Looked up first: deleteById ignores unknown ids, and a delete that removed nothing must
+        // not reach the change feed or the caches
+        productRepository.delete(loadProduct(id));
+        eventPublisher.publishEvent(new ProductChangedEvent(id, null, ProductChangeType.DELETED));
+    }
+
+    // Out-of-range sizes are rejected rather than capped, so a client never silently gets fewer rows than it asked for
+    private int pageSize(Integer size) {
+        int requested = size == null ? Integer.parseInt(AppConstants.PAGE_SIZE) : size;
+        if (requested < 1 || requested > AppConstants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Invalid page size: " + requested + ". It must be between 1 and "
+                    + AppConstants.MAX_PAGE_SIZE);
+        }
+        return requested;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream outputStream) throws IOException {
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            Iterator<Product> iterator = products.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                outputStream.write(objectMapper.writeValueAsBytes(product));
+                outputStream.write('\n');
+                entityManager.detach(product);
+                // Flush the first row right away, then once per fetch batch
+                if (written++ % EXPORT_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+    }
+
+    // Products come from the columnar store once it is loaded. Before that, from the product cache
+    // where possible and the misses from one findAllById, which returns rows in arbitrary order;
+    // put them back in the order of ids
+    private List<Product> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (productStore.isReady()) {
+            return productStore.getAll(ids);
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Product cached = productCache.getById(id);
+            if (cached != null) {
+                byId.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = productCache.generation();
+            for (Product product : productRepository.findAllById(missing)) {
+                productCache.putById(product, generation);
+                byId.put(product.getId(), product);
+            }
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Writes always start from the managed entity, never from a cached copy
+    private Product loadProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
+    }
+
+    private List<ProductSummaryDTO> fetchPage(String cursor, int limit, boolean byPrice, boolean descending) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (cursor == null || cursor.isBlank()) {
+            Sort sort = byPrice ? Sort.by(direction, "price", "id") : Sort.by(direction, "id");
+            return productRepository.findSummaries(PageRequest.of(0, limit, sort));
+        }
+
+        String[] parts = decodeCursor(cursor, byPrice, descending);
+        try {
+            if (byPrice) {
+                BigDecimal price = new BigDecimal(parts[2]);
+                Long id = Long.valueOf(parts[3]);
+                return descending
+                        ? productRepository.findSummariesAfterPriceDesc(price, id, PageRequest.ofSize(limit))
+                        : productRepository.findSummariesAfterPriceAsc(price, id, PageRequest.ofSize(limit));
+            }
+            Long id = Long.valueOf(parts[2]);
+            PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(direction, "id"));
+            return descending
+                    ? productRepository.findSummariesBeforeId(id, pageRequest)
+                    : productRepository.findSummariesAfterId(id, pageRequest);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Cursor layout before encoding: "<sortBy>:<sortDir>[:<price>]:<id>"
+    private String encodeCursor(ProductSummaryDTO last, boolean byPrice, boolean descending) {
+        String raw = (byPrice ? "price" : "id") + ":" + (descending ? "desc" : "asc") + ":"
+                + (byPrice ? last.price().toPlainString() + ":" : "") + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, boolean byPrice, boolean descending) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        String[] parts = raw.split(":");
+        if (parts.length != (byPrice ? 4 : 3)
+                || !parts[0].equals(byPrice ? "price" : "id")
+                || !parts[1].equals(descending ? "desc" : "asc")) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        return parts;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,521 @@
+package com.minh.jewerlystore.store;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.search.ProductIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read copy of the whole catalog kept outside the Java heap, one direct buffer per column.
+ *
+ * Products occupy dense slots; removing one moves the last product into its slot. Prices are
+ * stored as {@code long} minor units, category, brand and color as codes into small on-heap
+ * dictionaries, and the free-text fields as UTF-8 in a shared string buffer addressed by
+ * offset and length. Rewritten strings leave garbage behind that is compacted away once it makes
+ * up half of the buffer. The id-to-slot table uses primitive arrays, so the heap holds a handful
+ * of large objects instead of several per product and the GC has nothing to trace.
+ *
+ * {@link Product} and {@link ProductDetailDTO} objects are only created when a read asks for
+ * them. A write carrying an older version than the one stored is ignored. Until the first full
+ * load completes the store reports itself as not ready and callers fall back to the product
+ * cache and the database; once it is ready, lookups by id are answered here only.
+ */
+@Component
+@Slf4j
+public class ColumnarProductStore implements ProductIndex {
+    private static final int SCALE = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_STRING_BYTES = 64 * 1024;
+    private static final int MIN_COMPACT_BYTES = 1024 * 1024;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final long NULL_STRING = -1L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SlotTable slots = new SlotTable();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+    private final Dictionary colors = new Dictionary();
+    private int capacity;
+    private int size;
+    private ByteBuffer ids;
+    private ByteBuffer prices;
+    private ByteBuffer versions;
+    private ByteBuffer stock;
+    private ByteBuffer categoryCodes;
+    private ByteBuffer brandCodes;
+    private ByteBuffer colorCodes;
+    // offset << 32 | length into the string buffer, NULL_STRING for null
+    private ByteBuffer names;
+    private ByteBuffer descriptions;
+    private ByteBuffer imageUrls;
+    private ByteBuffer strings;
+    private int stringsEnd;
+    private int garbageBytes;
+    private volatile boolean ready;
+
+    public ColumnarProductStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(product.getId());
+            if (slot < 0) {
+                ensureCapacity(size + 1);
+                slot = size++;
+                slots.put(product.getId(), slot);
+            } else {
+                long stored = versions.getLong(slot * 8);
+                if (product.getVersion() != null && stored != NULL_LONG && product.getVersion() < stored) {
+                    // Events can arrive out of order; never let an older write replace a newer one
+                    return;
+                }
+                releaseStrings(slot);
+            }
+            write(slot, product);
+            compactStringsIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.remove(productId);
+            if (slot < 0) {
+                return;
+            }
+            releaseStrings(slot);
+            int last = --size;
+            if (slot != last) {
+                moveSlot(last, slot);
+                slots.put(ids.getLong(slot * 8), slot);
+            }
+            compactStringsIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            slots.clear();
+            categories.clear();
+            brands.clear();
+            colors.clear();
+            size = 0;
+            allocate(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadCompleted() {
+        ready = true;
+        log.info("Columnar product store holds {} products in {} KB off-heap", size(), offHeapBytes() / 1024);
+    }
+
+    @Override
+    public boolean tracksStock() {
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) capacity * (8 * 3 + 4 * 4 + 8 * 3) + strings.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Product> get(Long productId) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(productId);
+            return slot < 0 ? Optional.empty() : Optional.of(readProduct(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return products for the ids that exist, in the order given
+     */
+    public List<Product> getAll(List<Long> productIds) {
+        lock.readLock().lock();
+        try {
+            List<Product> products = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                int slot = slots.get(productId);
+                if (slot >= 0) {
+                    products.add(readProduct(slot));
+                }
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return details for the ids that exist, in the order given
+     */
+    public List<ProductDetailDTO> getDetails(List<Long> productIds) {
+        lock.readLock().lock();
+        try {
+            List<ProductDetailDTO> details = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                int slot = slots.get(productId);
+                if (slot >= 0) {
+                    details.add(readDetail(slot));
+                }
+            }
+            return details;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(int slot, Product product) {
+        int at = slot * 8;
+        int intAt = slot * 4;
+        ids.putLong(at, product.getId());
+        prices.putLong(at, product.getPrice() == null ? NULL_LONG
+                : product.getPrice().setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        versions.putLong(at, product.getVersion() == null ? NULL_LONG : product.getVersion());
+        stock.putInt(intAt, product.getStockQuantity() == null ? NULL_INT : product.getStockQuantity());
+        categoryCodes.putInt(intAt, categories.encode(product.getCategory()));
+        brandCodes.putInt(intAt, brands.encode(product.getBrand()));
+        colorCodes.putInt(intAt, colors.encode(product.getColor()));
+        names.putLong(at, putString(product.getName()));
+        descriptions.putLong(at, putString(product.getDescription()));
+        imageUrls.putLong(at, putString(product.getImageUrl()));
+    }
+
+    private Product readProduct(int slot) {
+        int at = slot * 8;
+        int intAt = slot * 4;
+        Product product = new Product();
+        product.setId(ids.getLong(at));
+        product.setName(getString(names.getLong(at)));
+        product.setDescription(getString(descriptions.getLong(at)));
+        product.setPrice(price(prices.getLong(at)));
+        product.setCategory(categories.decode(categoryCodes.getInt(intAt)));
+        product.setBrand(brands.decode(brandCodes.getInt(intAt)));
+        product.setColor(colors.decode(colorCodes.getInt(intAt)));
+        int stockQuantity = stock.getInt(intAt);
+        product.setStockQuantity(stockQuantity == NULL_INT ? null : stockQuantity);
+        product.setImageUrl(getString(imageUrls.getLong(at)));
+        long version = versions.getLong(at);
+        product.setVersion(version == NULL_LONG ? null : version);
+        return product;
+    }
+
+    private ProductDetailDTO readDetail(int slot) {
+        int at = slot * 8;
+        int intAt = slot * 4;
+        int stockQuantity = stock.getInt(intAt);
+        long version = versions.getLong(at);
+        return new ProductDetailDTO(
+                ids.getLong(at),
+                getString(names.getLong(at)),
+                getString(descriptions.getLong(at)),
+                price(prices.getLong(at)),
+                categories.decode(categoryCodes.getInt(intAt)),
+                brands.decode(brandCodes.getInt(intAt)),
+                colors.decode(colorCodes.getInt(intAt)),
+                stockQuantity == NULL_INT ? null : stockQuantity,
+                getString(imageUrls.getLong(at)),
+                version == NULL_LONG ? null : version);
+    }
+
+    private static BigDecimal price(long minorUnits) {
+        return minorUnits == NULL_LONG ? null : BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    private void moveSlot(int from, int to) {
+        int fromAt = from * 8;
+        int toAt = to * 8;
+        int fromIntAt = from * 4;
+        int toIntAt = to * 4;
+        for (ByteBuffer column : new ByteBuffer[] {ids, prices, versions, names, descriptions, imageUrls}) {
+            column.putLong(toAt, column.getLong(fromAt));
+        }
+        for (ByteBuffer column : new ByteBuffer[] {stock, categoryCodes, brandCodes, colorCodes}) {
+            column.putInt(toIntAt, column.getInt(fromIntAt));
+        }
+    }
+
+    private long putString(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (stringsEnd + bytes.length > strings.capacity()) {
+            growStrings(stringsEnd + bytes.length);
+        }
+        int offset = stringsEnd;
+        strings.put(offset, bytes);
+        stringsEnd += bytes.length;
+        return (long) offset << 32 | bytes.length;
+    }
+
+    private String getString(long ref) {
+        if (ref == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) ref];
+        strings.get((int) (ref >>> 32), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void releaseStrings(int slot) {
+        int at = slot * 8;
+        for (ByteBuffer column : new ByteBuffer[] {names, descriptions, imageUrls}) {
+            long ref = column.getLong(at);
+            if (ref != NULL_STRING) {
+                garbageBytes += (int) ref;
+            }
+        }
+    }
+
+    // Copies the live strings into a fresh buffer, dropping the bytes of overwritten values
+    private void compactStringsIfNeeded() {
+        if (stringsEnd < MIN_COMPACT_BYTES || garbageBytes <= stringsEnd / 2) {
+            return;
+        }
+        int live = stringsEnd - garbageBytes;
+        ByteBuffer compacted = ByteBuffer.allocateDirect(Math.max(INITIAL_STRING_BYTES, live * 2));
+        int end = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int at = slot * 8;
+            for (ByteBuffer column : new ByteBuffer[] {names, descriptions, imageUrls}) {
+                long ref = column.getLong(at);
+                if (ref == NULL_STRING) {
+                    continue;
+                }
+                int length = (int) ref;
+                compacted.put(end, strings, (int) (ref >>> 32), length);
+                column.putLong(at, (long) end << 32 | length);
+                end += length;
+            }
+        }
+        strings = compacted;
+        stringsEnd = end;
+        garbageBytes = 0;
+    }
+
+    private void growStrings(int required) {
+        long newCapacity = Math.max(required, (long) strings.capacity() * 2);
+        if (newCapacity > Integer.MAX_VALUE) {
+            newCapacity = Integer.MAX_VALUE;
+            if (required > newCapacity) {
+                throw new IllegalStateException("Product text does not fit in the columnar store");
+            }
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) newCapacity);
+        grown.put(0, strings, 0, stringsEnd);
+        strings = grown;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        ids = grow(ids, newCapacity * 8);
+        prices = grow(prices, newCapacity * 8);
+        versions = grow(versions, newCapacity * 8);
+        names = grow(names, newCapacity * 8);
+        descriptions = grow(descriptions, newCapacity * 8);
+        imageUrls = grow(imageUrls, newCapacity * 8);
+        stock = grow(stock, newCapacity * 4);
+        categoryCodes = grow(categoryCodes, newCapacity * 4);
+        brandCodes = grow(brandCodes, newCapacity * 4);
+        colorCodes = grow(colorCodes, newCapacity * 4);
+        capacity = newCapacity;
+    }
+
+    private static ByteBuffer grow(ByteBuffer column, int bytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(bytes);
+        grown.put(0, column, 0, column.capacity());
+        return grown;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        ids = ByteBuffer.allocateDirect(newCapacity * 8);
+        prices = ByteBuffer.allocateDirect(newCapacity * 8);
+        versions = ByteBuffer.allocateDirect(newCapacity * 8);
+        names = ByteBuffer.allocateDirect(newCapacity * 8);
+        descriptions = ByteBuffer.allocateDirect(newCapacity * 8);
+        imageUrls = ByteBuffer.allocateDirect(newCapacity * 8);
+        stock = ByteBuffer.allocateDirect(newCapacity * 4);
+        categoryCodes = ByteBuffer.allocateDirect(newCapacity * 4);
+        brandCodes = ByteBuffer.allocateDirect(newCapacity * 4);
+        colorCodes = ByteBuffer.allocateDirect(newCapacity * 4);
+        strings = ByteBuffer.allocateDirect(INITIAL_STRING_BYTES);
+        stringsEnd = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Codes for a low-cardinality column. Codes are never reused, so a value that disappears
+     * keeps its entry until the next full reload.
+     */
+    private static final class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        private void clear() {
+            values.clear();
+            codes.clear();
+        }
+    }
+
+    /**
+     * Open-addressing map from product id to slot in two primitive arrays, with linear probing
+     * and backward-shift deletion so no tombstones build up.
+     */
+    private static final class SlotTable {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int count;
+
+        private SlotTable() {
+            clear();
+        }
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        private void put(long key, int value) {
+            if ((count + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                count++;
+            }
+            values[i] = value;
+        }
+
+        private int remove(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            // Shift later entries of the probe run back so lookups never stop at a hole too early
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            count--;
+            return removed;
+        }
+
+        private void clear() {
+            keys = new long[INITIAL_CAPACITY * 2];
+            Arrays.fill(keys, EMPTY);
+            values = new int[INITIAL_CAPACITY * 2];
+            count = 0;
+        }
+
+        private void resize(int newLength) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[newLength];
+            Arrays.fill(keys, EMPTY);
+            values = new int[newLength];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
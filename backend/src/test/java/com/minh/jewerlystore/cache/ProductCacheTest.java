@@ -0,0 +1,60 @@
+package com.minh.jewerlystore.cache;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.store.ColumnarProductStore;
+
+class ProductCacheTest {
+
+    private ColumnarProductStore productStore;
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        productStore = new ColumnarProductStore();
+        productCache = new ProductCache(productStore, 100, 10, 60);
+        productCache.putById(product(1L, "Diamond Ring"), productCache.generation());
+        productCache.putById(product(2L, "Pearl Necklace"), productCache.generation());
+    }
+
+    @Test
+    void onProductChanged_RefreshesEntryWhileStoreNotReady() {
+        // Act
+        productCache.onProductChanged(new ProductChangedEvent(1L, product(1L, "Diamond Ring v2"), ProductChangeType.UPDATED));
+
+        // Assert
+        assertEquals("Diamond Ring v2", productCache.getById(1L).getName());
+        assertEquals("Pearl Necklace", productCache.getById(2L).getName());
+    }
+
+    @Test
+    void onProductChanged_DropsByIdEntriesOnceStoreReady() {
+        // Arrange
+        productStore.loadCompleted();
+
+        // Act
+        productCache.onProductChanged(new ProductChangedEvent(1L, product(1L, "Diamond Ring v2"), ProductChangeType.UPDATED));
+
+        // Assert: the store answers lookups by id now, the cache holds no second copy
+        assertNull(productCache.getById(1L));
+        assertNull(productCache.getById(2L));
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("100.00"));
+        product.setCategory("Rings");
+        product.setVersion(0L);
+        return product;
+    }
+}
@@ -0,0 +1,81 @@
+package com.minh.jewerlystore.cache;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.cache.SearchResultCache.SearchKey;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+
+class SearchResultCacheTest {
+
+    private SearchResultCache searchResultCache;
+    private SearchKey rings;
+    private SearchKey necklaces;
+
+    @BeforeEach
+    void setUp() {
+        searchResultCache = new SearchResultCache(100, 60);
+        rings = SearchKey.of("Rings", new BigDecimal("100.00"), new BigDecimal("1000"), null, "", "price", "ASC", 20);
+        necklaces = SearchKey.of("Necklaces", null, null, "PNJ", null, "id", "asc", 20);
+        searchResultCache.put(rings, Arrays.asList(1L, 2L), searchResultCache.generation());
+        searchResultCache.put(necklaces, Arrays.asList(3L), searchResultCache.generation());
+    }
+
+    @Test
+    void searchKey_NormalizesEquivalentFilters() {
+        // Act & Assert
+        assertEquals(rings, SearchKey.of("Rings", new BigDecimal("100"), new BigDecimal("1000.00"), "", null, "price", "asc", 20));
+    }
+
+    @Test
+    void onProductChanged_DropsEntriesContainingOrMatchingTheProduct() {
+        // Act: product 3 moves from necklaces into the rings price band
+        searchResultCache.onProductChanged(new ProductChangedEvent(3L, product(3L, "Rings", "PNJ", "500"), ProductChangeType.UPDATED));
+
+        // Assert
+        assertNull(searchResultCache.get(rings));
+        assertNull(searchResultCache.get(necklaces));
+    }
+
+    @Test
+    void onProductChanged_KeepsUnrelatedEntries() {
+        // Act
+        searchResultCache.onProductChanged(new ProductChangedEvent(9L, product(9L, "Rings", "PNJ", "5000"), ProductChangeType.CREATED));
+        searchResultCache.onProductChanged(new ProductChangedEvent(1L, product(1L, "Rings", "PNJ", "500"), ProductChangeType.STOCK_CHANGED));
+
+        // Assert
+        assertNotNull(searchResultCache.get(rings));
+        assertNotNull(searchResultCache.get(necklaces));
+    }
+
+    @Test
+    void put_SkipsResultsLoadedBeforeAWrite() {
+        // Arrange
+        SearchKey bracelets = SearchKey.of("Bracelets", null, null, null, null, "id", "asc", 20);
+        long generation = searchResultCache.generation();
+
+        // Act
+        searchResultCache.onProductChanged(new ProductChangedEvent(9L, product(9L, "Bracelets", "PNJ", "50"), ProductChangeType.CREATED));
+        searchResultCache.put(bracelets, Arrays.asList(4L), generation);
+
+        // Assert
+        assertNull(searchResultCache.get(bracelets));
+    }
+
+    private Product product(Long id, String category, String brand, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
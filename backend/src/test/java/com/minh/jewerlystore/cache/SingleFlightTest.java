@@ -0,0 +1,103 @@
+package com.minh.jewerlystore.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.EntityNotFoundException;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void load_ConcurrentCallersShareOneLoad() throws Exception {
+        // Arrange
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            // Act
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.load(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "Diamond Ring";
+                })));
+            }
+            // Give every caller time to join the flight before the load finishes
+            Thread.sleep(200);
+            release.countDown();
+
+            // Assert
+            for (Future<String> result : results) {
+                assertEquals("Diamond Ring", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_LoadsAgainOnceFlightHasLanded() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        singleFlight.load(1L, () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.load(1L, () -> "v" + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("v2", second);
+    }
+
+    @Test
+    void load_WaitersReceiveLeadersException() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+                await(release);
+                throw new EntityNotFoundException("Product not found with id: 1");
+            }));
+            Thread.sleep(100);
+            Future<String> waiter = executor.submit(() -> singleFlight.load(1L, () -> "unused"));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Assert
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertTrue(leaderError.getCause() instanceof EntityNotFoundException);
+            assertTrue(waiterError.getCause() instanceof EntityNotFoundException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.minh.jewerlystore.cart;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.minh.jewerlystore.entity.Cart;
+import com.minh.jewerlystore.entity.CartItem;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.User;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(CartPersister.class)
+class CartPersisterTest {
+
+    @Autowired
+    private CartPersister cartPersister;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void saveAll_AddsChangeOnTopOfConcurrentWrite() {
+        // Arrange
+        CartItem item = storedCartItem(2);
+        Long productId = item.getProduct().getId();
+        User user = item.getCart().getUser();
+        CartSnapshot loaded = cartPersister.load(user);
+        // Another writer adds 2 after the cart was loaded here
+        entityManager.getEntityManager()
+                .createQuery("UPDATE CartItem i SET i.quantity = i.quantity + 2, i.version = i.version + 1")
+                .executeUpdate();
+        entityManager.clear();
+        CartSnapshot changed = new CartSnapshot(user.getId(), loaded.cartId(),
+                List.of(new CartLine(item.getId(), productId, 5)), 1, Map.of(item.getId(), 2));
+
+        // Act
+        CartPersister.Saved saved = cartPersister.saveAll(List.of(changed)).get(user.getId());
+
+        // Assert
+        assertEquals(List.of(new CartLine(item.getId(), productId, 7)), saved.lines());
+    }
+
+    @Test
+    void saveAll_InsertsAndDeletesLines() {
+        // Arrange
+        CartItem item = storedCartItem(2);
+        User user = item.getCart().getUser();
+        Product other = product("Pearl Necklace");
+        CartSnapshot loaded = cartPersister.load(user);
+        long newItemId = cartPersister.reserveItemIds().first();
+        entityManager.clear();
+        CartSnapshot changed = new CartSnapshot(user.getId(), loaded.cartId(),
+                List.of(new CartLine(newItemId, other.getId(), 1)), 1, Map.of(item.getId(), 2));
+
+        // Act
+        CartPersister.Saved saved = cartPersister.saveAll(List.of(changed)).get(user.getId());
+
+        // Assert
+        assertEquals(List.of(new CartLine(newItemId, other.getId(), 1)), saved.lines());
+    }
+
+    @Test
+    void saveAll_KeepsLinesAddedByOtherWriters() {
+        // Arrange
+        CartItem item = storedCartItem(2);
+        User user = item.getCart().getUser();
+        CartSnapshot loaded = cartPersister.load(user);
+        entityManager.clear();
+        // Nothing known about the stored line, e.g. it was added after this cart was loaded
+        CartSnapshot empty = new CartSnapshot(user.getId(), loaded.cartId(), List.of(), 1, Map.of());
+
+        // Act
+        CartPersister.Saved saved = cartPersister.saveAll(List.of(empty)).get(user.getId());
+
+        // Assert
+        assertEquals(List.of(new CartLine(item.getId(), item.getProduct().getId(), 2)), saved.lines());
+    }
+
+    @Test
+    void saveAll_CreatesCartWithVersionAndReusesItForSameUser() {
+        // Arrange: a user without a stored cart, written by two instances that both saw none
+        User user = entityManager.persist(new User("newbuyer", "newbuyer@example.com", "password"));
+        Product product = product("Diamond Ring");
+        long firstItemId = cartPersister.reserveItemIds().first();
+        entityManager.clear();
+        CartSnapshot first = new CartSnapshot(user.getId(), null,
+                List.of(new CartLine(firstItemId, product.getId(), 1)), 1, Map.of());
+        CartSnapshot second = new CartSnapshot(user.getId(), null,
+                List.of(new CartLine(firstItemId + 1, product.getId(), 2)), 1, Map.of());
+
+        // Act
+        CartPersister.Saved created = cartPersister.saveAll(List.of(first)).get(user.getId());
+        CartPersister.Saved reused = cartPersister.saveAll(List.of(second)).get(user.getId());
+
+        // Assert
+        assertEquals(created.cartId(), reused.cartId());
+        assertEquals(2, reused.lines().size());
+        Object version = entityManager.getEntityManager()
+                .createNativeQuery("SELECT version FROM carts WHERE id = :id")
+                .setParameter("id", created.cartId())
+                .getSingleResult();
+        assertEquals(0L, ((Number) version).longValue());
+    }
+
+    @Test
+    void reserveItemIds_DoesNotOverlapGeneratedIds() {
+        // Arrange
+        CartItem item = storedCartItem(1);
+
+        // Act
+        CartPersister.ItemIdBlock block = cartPersister.reserveItemIds();
+
+        // Assert
+        assertEquals(CartItem.ID_BLOCK_SIZE, block.last() - block.first() + 1);
+        assertTrue(item.getId() < block.first() || item.getId() > block.last());
+    }
+
+    private CartItem storedCartItem(int quantity) {
+        User user = entityManager.persist(new User("buyer", "buyer@example.com", "password"));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        CartItem item = new CartItem();
+        item.setCart(cart);
+        item.setProduct(product("Diamond Ring"));
+        item.setQuantity(quantity);
+        cart.getItems().add(item);
+        entityManager.persistAndFlush(cart);
+        return item;
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setCategory("Rings");
+        return entityManager.persistAndFlush(product);
+    }
+}
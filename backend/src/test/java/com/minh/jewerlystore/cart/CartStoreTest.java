@@ -0,0 +1,177 @@
+package com.minh.jewerlystore.cart;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.minh.jewerlystore.entity.User;
+
+@ExtendWith(MockitoExtension.class)
+class CartStoreTest {
+
+    @Mock
+    private CartPersister cartPersister;
+
+    private CartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        cartStore = new CartStore(cartPersister, 1000, 2, 0);
+        lenient().when(cartPersister.load(any())).thenReturn(null);
+        lenient().when(cartPersister.reserveItemIds()).thenReturn(new CartPersister.ItemIdBlock(1000, 1049));
+    }
+
+    @Test
+    void flush_WritesDirtyCartsInBatchesAndKeepsItemIds() {
+        // Arrange
+        when(cartPersister.saveAll(anyList())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        for (long userId = 1; userId <= 3; userId++) {
+            cartStore.update(user(userId), cart -> cart.put(5L, 1));
+        }
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        assertEquals(0, cartStore.dirtyCount());
+        CartSnapshot cart = cartStore.read(user(2L));
+        assertEquals(200L, cart.cartId());
+        assertEquals(1001L, cart.lines().get(0).itemId());
+
+        // Verify
+        verify(cartPersister, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void flush_KeepsCartChangedDuringWriteDirty() {
+        // Arrange
+        cartStore.update(user(1L), cart -> cart.put(5L, 1));
+        when(cartPersister.saveAll(anyList())).thenAnswer(invocation -> {
+            cartStore.update(user(1L), cart -> cart.put(6L, 1));
+            return saved(invocation.getArgument(0));
+        }).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        CartSnapshot cart = cartStore.read(user(1L));
+        assertEquals(List.of(1000L, 1001L), cart.lines().stream().map(CartLine::itemId).toList());
+        assertEquals(0, cartStore.dirtyCount());
+
+        // Verify
+        verify(cartPersister, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void flush_MergesOtherWritersChanges() {
+        // Arrange
+        cartStore.update(user(1L), cart -> cart.put(5L, 1));
+        when(cartPersister.saveAll(anyList())).thenAnswer(invocation -> {
+            // Changed here while the write is in flight, and by another writer in the database
+            cartStore.update(user(1L), cart -> cart.put(5L, 3));
+            return Map.of(1L, new CartPersister.Saved(100L, List.of(new CartLine(1000L, 5L, 4))));
+        }).thenAnswer(invocation -> {
+            CartSnapshot cart = invocation.<List<CartSnapshot>>getArgument(0).get(0);
+            assertEquals(4, cart.written().get(1000L));
+            return Map.of(1L, new CartPersister.Saved(100L, List.of(new CartLine(1000L, 5L, 6))));
+        });
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        assertEquals(6, cartStore.read(user(1L)).lines().get(0).quantity());
+        assertEquals(0, cartStore.dirtyCount());
+
+        // Verify
+        verify(cartPersister, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void flush_FoldsSameProductAddedByOtherWriter() {
+        // Arrange
+        cartStore.update(user(1L), cart -> cart.put(5L, 1));
+        when(cartPersister.saveAll(anyList())).thenReturn(Map.of(1L, new CartPersister.Saved(100L,
+                List.of(new CartLine(1000L, 5L, 1), new CartLine(7L, 5L, 2), new CartLine(8L, 6L, 1)))))
+                .thenAnswer(invocation -> {
+                    // The other writer's duplicate line is known now, so this write deletes it
+                    CartSnapshot cart = invocation.<List<CartSnapshot>>getArgument(0).get(0);
+                    assertEquals(2, cart.written().get(7L));
+                    return Map.of(1L, new CartPersister.Saved(100L,
+                            List.of(new CartLine(1000L, 5L, 3), new CartLine(8L, 6L, 1))));
+                });
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        CartSnapshot cart = cartStore.read(user(1L));
+        assertEquals(List.of(new CartLine(1000L, 5L, 3), new CartLine(8L, 6L, 1)), cart.lines());
+        assertEquals(0, cartStore.dirtyCount());
+
+        // Verify
+        verify(cartPersister, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void flush_KeepsFailedCartDirty() {
+        // Arrange
+        when(cartPersister.saveAll(anyList())).thenReturn(Collections.emptyMap());
+        cartStore.update(user(1L), cart -> cart.put(5L, 1));
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        assertEquals(1, cartStore.dirtyCount());
+        assertNull(cartStore.read(user(1L)).cartId());
+    }
+
+    @Test
+    void flush_EvictsIdleCleanCarts() throws InterruptedException {
+        // Arrange
+        cartStore.read(user(1L));
+        Thread.sleep(5);
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        assertEquals(0, cartStore.size());
+        cartStore.read(user(1L));
+        verify(cartPersister, times(2)).load(any());
+    }
+
+    private Map<Long, CartPersister.Saved> saved(List<CartSnapshot> carts) {
+        Map<Long, CartPersister.Saved> saved = new HashMap<>();
+        for (CartSnapshot cart : carts) {
+            List<CartLine> lines = cart.lines().stream()
+                    .map(line -> new CartLine(line.itemId(), line.productId(), line.quantity()))
+                    .toList();
+            saved.put(cart.userId(), new CartPersister.Saved(cart.userId() * 100, lines));
+        }
+        return saved;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,83 @@
+package com.minh.jewerlystore.changefeed;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.minh.jewerlystore.entity.ProductChange;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.repository.ProductChangeHeadRepository;
+import com.minh.jewerlystore.repository.ProductChangeRepository;
+
+// Numbering runs in its own transaction after the write commits, so the test commits its writes too
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductChangeFeed.class)
+class ProductChangeFeedTest {
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductChangeHeadRepository productChangeHeadRepository;
+
+    @AfterEach
+    void tearDown() {
+        productChangeRepository.deleteAll();
+        productChangeHeadRepository.deleteAll();
+    }
+
+    @Test
+    void read_SkipsChangesUntilTheyAreNumbered() {
+        // Arrange
+        productChangeRepository.save(change(1L));
+
+        // Act
+        List<ProductChange> before = productChangeFeed.read(0, 10);
+        long headBefore = productChangeFeed.head();
+        productChangeFeed.sequencePending();
+        List<ProductChange> after = productChangeFeed.read(0, 10);
+
+        // Assert
+        assertTrue(before.isEmpty());
+        assertEquals(0L, headBefore);
+        assertEquals(1, after.size());
+        assertEquals(1L, after.get(0).getSequence());
+        assertEquals(1L, productChangeFeed.head());
+    }
+
+    @Test
+    void sequencePending_ContinuesAfterLastNumber() {
+        // Arrange
+        productChangeRepository.save(change(1L));
+        productChangeFeed.sequencePending();
+        productChangeRepository.saveAll(List.of(change(2L), change(3L)));
+
+        // Act
+        productChangeFeed.sequencePending();
+
+        // Assert
+        List<ProductChange> changes = productChangeFeed.read(1, 10);
+        assertEquals(List.of(2L, 3L), changes.stream().map(ProductChange::getSequence).toList());
+        assertEquals(List.of(2L, 3L), changes.stream().map(ProductChange::getProductId).toList());
+    }
+
+    private ProductChange change(Long productId) {
+        return new ProductChange(null, null, productId, ProductChangeType.UPDATED, LocalDateTime.now());
+    }
+}
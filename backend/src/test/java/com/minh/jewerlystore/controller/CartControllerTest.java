@@ -20,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest;
 import com.minh.jewerlystore.payload.response.CartResponse;
 import com.minh.jewerlystore.security.services.UserDetailsImpl;
 import com.minh.jewerlystore.service.CartService;
@@ -142,6 +143,26 @@ class CartControllerTest {
         verify(cartService).removeFromCart(testUser, 1L);
     }
 
+    @Test
+    void applyOperations_Success() {
+        // Arrange
+        CartOperationsRequest request = new CartOperationsRequest();
+        request.getOperations().add(new CartOperationsRequest.Operation(CartOperationsRequest.Type.ADD, 1L, 2));
+        when(cartService.applyOperations(testUser, request.getOperations())).thenReturn(testCartResponse);
+
+        // Act
+        ResponseEntity<CartResponse> response = cartController.applyOperations(userDetails, request);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(testCartResponse, response.getBody());
+
+        // Verify
+        verify(userService).getUserById(1L);
+        verify(cartService).applyOperations(testUser, request.getOperations());
+    }
+
     @Test
     void clearCart_Success() {
         // Act
@@ -1,10 +1,14 @@
 package com.minh.jewerlystore.controller;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,12 +19,32 @@ import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.minh.jewerlystore.config.AppConstants;
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.mapper.ProductMapper;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
+import com.minh.jewerlystore.payload.response.ProductPageResponse;
 import com.minh.jewerlystore.service.ProductService;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -53,52 +77,56 @@ class ProductControllerTest {
     @Test
     void getAllProducts_Success() {
         // Arrange
-        List<Product> products = Arrays.asList(testProduct);
-        when(productService.getAllProducts()).thenReturn(products);
+        ProductPageResponse page = new ProductPageResponse(Arrays.asList(new ProductSummaryDTO(1L, "Diamond Ring",
+                new BigDecimal("999.99"), "Rings", "ring.jpg", 0L)), 1, "next", true);
+        when(productService.getProducts(null, 12, "id", "asc")).thenReturn(page);
 
         // Act
-        ResponseEntity<List<Product>> response = productController.getAllProducts();
+        ResponseEntity<ProductPageResponse> response = productController.getAllProducts(null, 12, "id", "asc");
 
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().size());
-        assertEquals(testProduct.getName(), response.getBody().get(0).getName());
+        assertEquals(1, response.getBody().getContent().size());
+        assertEquals(testProduct.getName(), response.getBody().getContent().get(0).name());
+        assertEquals("next", response.getBody().getNextCursor());
 
         // Verify
-        verify(productService).getAllProducts();
+        verify(productService).getProducts(null, 12, "id", "asc");
     }
 
     @Test
     void getProduct_Success() {
         // Arrange
-        when(productService.getProductById(1L)).thenReturn(testProduct);
+        when(productService.findProductById(1L)).thenReturn(Optional.of(testProduct));
 
         // Act
-        ResponseEntity<Product> response = productController.getProduct(1L);
+        ResponseEntity<ProductDetailDTO> response = productController.getProduct(1L);
 
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(testProduct.getId(), response.getBody().getId());
-        assertEquals(testProduct.getName(), response.getBody().getName());
+        assertEquals(testProduct.getId(), response.getBody().id());
+        assertEquals(testProduct.getName(), response.getBody().name());
+        assertEquals(testProduct.getDescription(), response.getBody().description());
 
         // Verify
-        verify(productService).getProductById(1L);
+        verify(productService).findProductById(1L);
     }
 
     @Test
     void getProduct_NotFound() {
         // Arrange
-        when(productService.getProductById(1L)).thenThrow(new EntityNotFoundException("Product not found"));
+        when(productService.findProductById(1L)).thenReturn(Optional.empty());
 
-        // Act & Assert
-        assertThrows(EntityNotFoundException.class, () ->
-            productController.getProduct(1L)
-        );
+        // Act
+        ResponseEntity<ProductDetailDTO> response = productController.getProduct(1L);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 
         // Verify
-        verify(productService).getProductById(1L);
+        verify(productService).findProductById(1L);
     }
 
     @Test
@@ -110,7 +138,10 @@ class ProductControllerTest {
             new BigDecimal("500.00"),
             new BigDecimal("1000.00"),
             "Luxury Brand",
-            "Silver"
+            "Silver",
+            "price",
+            "asc",
+            20
         )).thenReturn(products);
 
         // Act
@@ -119,7 +150,10 @@ class ProductControllerTest {
             new BigDecimal("500.00"),
             new BigDecimal("1000.00"),
             "Luxury Brand",
-            "Silver"
+            "Silver",
+            "price",
+            "asc",
+            20
         );
 
         // Assert
@@ -134,7 +168,10 @@ class ProductControllerTest {
             new BigDecimal("500.00"),
             new BigDecimal("1000.00"),
             "Luxury Brand",
-            "Silver"
+            "Silver",
+            "price",
+            "asc",
+            20
         );
     }
 
@@ -142,10 +179,10 @@ class ProductControllerTest {
     void searchByName_Success() {
         // Arrange
         List<Product> products = Arrays.asList(testProduct);
-        when(productService.searchByName("Diamond")).thenReturn(products);
+        when(productService.searchByName("Diamond", false)).thenReturn(products);
 
         // Act
-        ResponseEntity<List<Product>> response = productController.searchByName("Diamond");
+        ResponseEntity<List<Product>> response = productController.searchByName("Diamond", false);
 
         // Assert
         assertNotNull(response);
@@ -154,7 +191,7 @@ class ProductControllerTest {
         assertEquals(testProduct.getName(), response.getBody().get(0).getName());
 
         // Verify
-        verify(productService).searchByName("Diamond");
+        verify(productService).searchByName("Diamond", false);
     }
 
     @Test
@@ -175,6 +212,58 @@ class ProductControllerTest {
         verify(productService).createProduct(testProduct);
     }
 
+    @Test
+    void getProductsByIds_RoutesIdsParameterToBatchLookup() throws Exception {
+        // Arrange
+        when(productService.getProductsByIds(Arrays.asList(1L, 2L))).thenReturn(new ProductBatchResponse(
+                Arrays.asList(ProductMapper.toDetail(testProduct)), Arrays.asList(2L)));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(2));
+
+        // Verify
+        verify(productService).getProductsByIds(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    void getProduct_MatchingIfNoneMatch_ReturnsNotModified() throws Exception {
+        // Arrange
+        testProduct.setVersion(3L);
+        when(productService.findProductById(1L)).thenReturn(Optional.of(testProduct));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void searchProducts_ETagChangesWithProductVersion() {
+        // Arrange
+        testProduct.setVersion(1L);
+        when(productService.searchProducts(null, null, null, null, null, "id", "asc", null))
+                .thenReturn(Arrays.asList(testProduct));
+        String before = productController.searchProducts(null, null, null, null, null, "id", "asc", null)
+                .getHeaders().getETag();
+
+        // Act
+        testProduct.setVersion(2L);
+        String after = productController.searchProducts(null, null, null, null, null, "id", "asc", null)
+                .getHeaders().getETag();
+
+        // Assert
+        assertNotNull(before);
+        assertNotEquals(before, after);
+    }
+
     @Test
     void updateProduct_Success() {
         // Arrange
@@ -223,4 +312,36 @@ class ProductControllerTest {
         // Verify
         verify(productService).deleteProduct(1L);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void checkAvailability_RejectsMissingOrTooManyItems() throws Exception {
+        // Arrange
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+        String tooMany = "{\"items\":[" + String.join(",",
+                Collections.nCopies(AppConstants.MAX_BATCH_IDS + 1, "{\"productId\":1,\"quantity\":1}")) + "]}";
+
+        // Act & Assert
+        for (String body : List.of("{\"items\":null}", "{\"items\":[null]}", "{\"items\":[{\"quantity\":1}]}", tooMany)) {
+            mockMvc.perform(post("/api/products/availability").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        // Verify
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void exportProducts_SetsExportTimeoutOnItsOwnRequest() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(productController, "exportTimeout", Duration.ofMinutes(10));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        assertEquals(600000L, result.getRequest().getAsyncContext().getTimeout());
+    }
+}
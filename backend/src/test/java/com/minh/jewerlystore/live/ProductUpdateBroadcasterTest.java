@@ -0,0 +1,151 @@
+package com.minh.jewerlystore.live;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.payload.dto.ProductLiveUpdateDTO;
+
+class ProductUpdateBroadcasterTest {
+
+    private List<Runnable> queuedSends;
+    private ProductUpdateBroadcaster broadcaster;
+    private RecordingEmitter emitter;
+
+    @BeforeEach
+    void setUp() {
+        queuedSends = new ArrayList<>();
+        broadcaster = new ProductUpdateBroadcaster(queuedSends::add, 250, 60000, 30000, 60000);
+        emitter = new RecordingEmitter();
+        broadcaster.subscribe(Arrays.asList(1L), Collections.emptyList(), emitter);
+    }
+
+    @Test
+    void flush_CoalescesBurstToLatestUpdate() {
+        // Arrange
+        broadcaster.onProductChanged(stockChanged(1L, 5));
+        broadcaster.onProductChanged(stockChanged(1L, 4));
+        broadcaster.onProductChanged(stockChanged(1L, 3));
+
+        // Act
+        flushAndSend();
+
+        // Assert
+        assertEquals(1, emitter.updates.size());
+        assertEquals(3, emitter.updates.get(0).stockQuantity());
+    }
+
+    @Test
+    void flush_KeepsHigherVersionWhenEventsArriveOutOfOrder() {
+        // Arrange
+        broadcaster.onProductChanged(stockChanged(1L, 3, 12L));
+        broadcaster.onProductChanged(stockChanged(1L, 4, 11L));
+
+        // Act
+        flushAndSend();
+        broadcaster.onProductChanged(stockChanged(1L, 5, 10L));
+        flushAndSend();
+
+        // Assert
+        assertEquals(1, emitter.updates.size());
+        assertEquals(3, emitter.updates.get(0).stockQuantity());
+        assertEquals(12L, emitter.updates.get(0).version());
+    }
+
+    @Test
+    void flush_SkipsSubscriberStillSending() {
+        // Arrange
+        broadcaster.onProductChanged(stockChanged(1L, 5));
+        broadcaster.flush();
+        broadcaster.onProductChanged(stockChanged(1L, 4));
+        broadcaster.onProductChanged(stockChanged(1L, 2));
+
+        // Act
+        broadcaster.flush();
+
+        // Assert
+        assertEquals(1, queuedSends.size());
+        // The send that was held up picks up the newest value; the intermediate ones are never sent
+        flushAndSend();
+        flushAndSend();
+        assertEquals(Arrays.asList(2), emitter.updates.stream().map(ProductLiveUpdateDTO::stockQuantity).toList());
+    }
+
+    @Test
+    void flush_IgnoresUnwatchedProductsAndUnchangedValues() {
+        // Arrange
+        broadcaster.onProductChanged(stockChanged(1L, 5));
+        flushAndSend();
+        broadcaster.onProductChanged(stockChanged(2L, 1));
+        broadcaster.onProductChanged(new ProductChangedEvent(1L, product(1L, 5), ProductChangeType.UPDATED));
+
+        // Act
+        flushAndSend();
+
+        // Assert
+        assertEquals(1, emitter.updates.size());
+    }
+
+    @Test
+    void subscribe_SendsCurrentStateFirst() {
+        // Arrange
+        RecordingEmitter other = new RecordingEmitter();
+        broadcaster.subscribe(Arrays.asList(7L),
+                Arrays.asList(new ProductLiveUpdateDTO(7L, new BigDecimal("10.00"), 9, 1L, false)), other);
+
+        // Act
+        flushAndSend();
+
+        // Assert
+        assertEquals(9, other.updates.get(0).stockQuantity());
+        assertEquals(0, emitter.updates.size());
+    }
+
+    private void flushAndSend() {
+        broadcaster.flush();
+        List<Runnable> sends = new ArrayList<>(queuedSends);
+        queuedSends.clear();
+        sends.forEach(Runnable::run);
+    }
+
+    private ProductChangedEvent stockChanged(Long id, int stock) {
+        return new ProductChangedEvent(id, product(id, stock), ProductChangeType.STOCK_CHANGED);
+    }
+
+    private ProductChangedEvent stockChanged(Long id, int stock, Long version) {
+        Product product = product(id, stock);
+        product.setVersion(version);
+        return new ProductChangedEvent(id, product, ProductChangeType.STOCK_CHANGED);
+    }
+
+    private Product product(Long id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(new BigDecimal("100.00"));
+        product.setStockQuantity(stock);
+        return product;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<ProductLiveUpdateDTO> updates = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(part -> part.getData())
+                    .filter(ProductLiveUpdateDTO.class::isInstance)
+                    .map(ProductLiveUpdateDTO.class::cast)
+                    .forEach(updates::add);
+        }
+    }
+}
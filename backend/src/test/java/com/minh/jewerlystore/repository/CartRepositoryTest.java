@@ -0,0 +1,100 @@
+package com.minh.jewerlystore.repository;
+
+import java.math.BigDecimal;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.minh.jewerlystore.entity.Cart;
+import com.minh.jewerlystore.entity.CartItem;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.User;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+class CartRepositoryTest {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findByUser_LoadsCartItemsAndProductsInOneStatement() {
+        // Arrange
+        User small = cartWithLines("small", 1);
+        User large = cartWithLines("large", 20);
+
+        // Act & Assert
+        assertEquals(1, statementsToLoad(small));
+        assertEquals(1, statementsToLoad(large));
+    }
+
+    @Test
+    void findById_LoadsCartItemsAndProductsInOneStatement() {
+        // Arrange
+        Long cartId = cartRepository.findByUser(cartWithLines("byid", 10)).orElseThrow().getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        Cart cart = cartRepository.findById(cartId).orElseThrow();
+        cart.getItems().forEach(item -> item.getProduct().getName());
+
+        // Assert
+        assertEquals(10, cart.getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long statementsToLoad(User user) {
+        entityManager.clear();
+        statistics.clear();
+        Cart cart = cartRepository.findByUser(user).orElseThrow();
+        // Touch everything the cart response reads
+        cart.getItems().forEach(item -> {
+            item.getProduct().getName();
+            item.getProduct().getPrice();
+        });
+        cart.getUser().getUsername();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User cartWithLines(String username, int lines) {
+        User user = entityManager.persist(new User(username, username + "@example.com", "password"));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product();
+            product.setName(username + " product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setCategory("Rings");
+            entityManager.persist(product);
+
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(1);
+            cart.getItems().add(item);
+        }
+        entityManager.persistAndFlush(cart);
+        return user;
+    }
+}
@@ -0,0 +1,91 @@
+package com.minh.jewerlystore.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductStockDTO;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void decrementStock_TakesStockAndBumpsVersion() {
+        // Arrange
+        Product product = product(5);
+        Long version = product.getVersion();
+
+        // Act
+        int updated = productRepository.decrementStock(product.getId(), 3);
+
+        // Assert
+        assertEquals(1, updated);
+        Product stored = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(2, stored.getStockQuantity());
+        assertEquals(version + 1, stored.getVersion());
+    }
+
+    @Test
+    void decrementStock_LeavesStockWhenNotEnough() {
+        // Arrange
+        Product product = product(2);
+
+        // Act
+        int updated = productRepository.decrementStock(product.getId(), 3);
+
+        // Assert
+        assertEquals(0, updated);
+        assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void decrementStock_SecondCheckoutOfLastUnitsFails() {
+        // Arrange: two checkouts that both saw enough stock when they checked it
+        Product product = product(3);
+
+        // Act
+        int first = productRepository.decrementStock(product.getId(), 2);
+        int second = productRepository.decrementStock(product.getId(), 2);
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(1, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void findStockQuantities_ReturnsStockOfFoundProducts() {
+        // Arrange
+        Product product = product(4);
+
+        // Act
+        List<ProductStockDTO> stock = productRepository.findStockQuantities(List.of(product.getId(), -1L));
+
+        // Assert
+        assertEquals(List.of(new ProductStockDTO(product.getId(), 4)), stock);
+    }
+
+    private Product product(int stock) {
+        Product product = new Product();
+        product.setName("Ring");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setCategory("Rings");
+        product.setStockQuantity(stock);
+        return entityManager.persistFlushFind(product);
+    }
+}
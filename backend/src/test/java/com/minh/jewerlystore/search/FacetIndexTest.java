@@ -0,0 +1,68 @@
+package com.minh.jewerlystore.search;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+
+class FacetIndexTest {
+
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        facetIndex = new FacetIndex();
+        facetIndex.index(product(1L, "Rings", "PNJ", "Gold"));
+        facetIndex.index(product(2L, "Rings", "DOJI", "Silver"));
+        facetIndex.index(product(3L, "Necklaces", "PNJ", "Gold"));
+    }
+
+    @Test
+    void query_CountsOtherFieldsWithinFilter() {
+        // Arrange
+        Map<FacetField, String> filters = new EnumMap<>(FacetField.class);
+        filters.put(FacetField.BRAND, "PNJ");
+
+        // Act
+        FacetIndex.Result result = facetIndex.query(filters, 10);
+
+        // Assert
+        assertEquals(2, result.getTotal());
+        assertEquals(Arrays.asList(1L, 3L), result.getIds());
+        assertEquals(1, result.getCounts().get("category").get("Rings"));
+        assertEquals(2, result.getCounts().get("color").get("Gold"));
+        // The brand facet ignores the brand filter so other brands stay selectable
+        assertEquals(1, result.getCounts().get("brand").get("DOJI"));
+    }
+
+    @Test
+    void query_ReflectsUpdatesAndRemovals() {
+        // Act
+        facetIndex.index(product(2L, "Necklaces", "DOJI", "Silver"));
+        facetIndex.remove(3L);
+        FacetIndex.Result result = facetIndex.query(new EnumMap<>(FacetField.class), 10);
+
+        // Assert
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getCounts().get("category").get("Rings"));
+        assertEquals(1, result.getCounts().get("category").get("Necklaces"));
+        assertEquals(1, result.getCounts().get("color").get("Gold"));
+    }
+
+    private Product product(Long id, String category, String brand, String color) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setColor(color);
+        product.setPrice(new BigDecimal("100.00"));
+        return product;
+    }
+}
@@ -0,0 +1,118 @@
+package com.minh.jewerlystore.search;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+
+class PriceIndexTest {
+
+    private PriceIndex priceIndex;
+
+    @BeforeEach
+    void setUp() {
+        priceIndex = new PriceIndex();
+        priceIndex.clear();
+        priceIndex.index(product(1L, "999.99"));
+        priceIndex.index(product(2L, "150.00"));
+        priceIndex.index(product(3L, "500.00"));
+        priceIndex.index(product(4L, "500.00"));
+        priceIndex.loadCompleted();
+    }
+
+    @Test
+    void idsInRange_InclusiveBounds() {
+        // Act & Assert
+        assertArrayEquals(new long[] {2L, 3L, 4L}, priceIndex.idsInRange(new BigDecimal("150"), new BigDecimal("500.00")));
+        assertArrayEquals(new long[] {3L, 4L, 1L}, priceIndex.idsInRange(new BigDecimal("150.001"), null));
+        assertArrayEquals(new long[0], priceIndex.idsInRange(new BigDecimal("1000"), null));
+    }
+
+    @Test
+    void idsInRange_ReflectsPriceUpdatesAndRemovals() {
+        // Act
+        priceIndex.index(product(1L, "200.00"));
+        priceIndex.remove(3L);
+        priceIndex.index(product(5L, "100.00"));
+
+        // Assert
+        assertArrayEquals(new long[] {5L, 2L, 1L, 4L}, priceIndex.idsInRange(null, null));
+        assertArrayEquals(new long[] {1L}, priceIndex.idsInRange(new BigDecimal("199.99"), new BigDecimal("200.00")));
+    }
+
+    @Test
+    void indexAll_MergesBatchIntoSortedOrder() {
+        // Act
+        priceIndex.indexAll(List.of(product(6L, "500.00"), product(2L, "600.00"), product(5L, "10.00")));
+
+        // Assert
+        assertArrayEquals(new long[] {5L, 3L, 4L, 6L, 2L, 1L}, priceIndex.idsInRange(null, null));
+    }
+
+    @Test
+    void idsInRange_MergesChangesMadeBetweenReads() {
+        // Arrange
+        priceIndex.idsInRange(null, null);
+
+        // Act: several writes to the same product, then one read
+        priceIndex.index(product(2L, "700.00"));
+        priceIndex.index(product(2L, "800.00"));
+        priceIndex.remove(4L);
+        priceIndex.index(product(4L, "50.00"));
+        priceIndex.remove(1L);
+
+        // Assert
+        assertArrayEquals(new long[] {4L, 3L, 2L}, priceIndex.idsInRange(null, null));
+    }
+
+    @Test
+    void idsInRange_LimitedAndDescending() {
+        // Act & Assert
+        assertEquals(List.of(1L, 4L), priceIndex.idsInRange(null, null, 2, true));
+        assertEquals(List.of(2L, 3L), priceIndex.idsInRange(new BigDecimal("100"), new BigDecimal("600"), 2, false));
+        assertEquals(List.of(4L, 3L, 2L), priceIndex.idsInRange(null, new BigDecimal("500"), 10, true));
+        assertTrue(priceIndex.isReady());
+    }
+
+    @Test
+    void idsInRange_ClampsBoundsBeyondLongRange() {
+        // Act & Assert
+        assertArrayEquals(new long[] {2L, 3L, 4L, 1L}, priceIndex.idsInRange(new BigDecimal("-1e30"), new BigDecimal("1e30")));
+        assertArrayEquals(new long[0], priceIndex.idsInRange(new BigDecimal("1e30"), null));
+        assertArrayEquals(new long[0], priceIndex.idsInRange(null, new BigDecimal("-1e999999")));
+    }
+
+    @Test
+    void loadCompleted_SortsManyProductsByPriceThenId() {
+        // Arrange: more products than the initial table holds, with repeated prices
+        priceIndex.clear();
+        for (long id = 5000; id >= 1; id--) {
+            priceIndex.index(product(id, String.valueOf(id % 7)));
+        }
+
+        // Act
+        priceIndex.loadCompleted();
+
+        // Assert
+        long[] ids = priceIndex.idsInRange(null, null);
+        assertEquals(5000, ids.length);
+        for (int i = 1; i < ids.length; i++) {
+            long previous = ids[i - 1];
+            long id = ids[i];
+            assertTrue(previous % 7 < id % 7 || (previous % 7 == id % 7 && previous < id));
+        }
+    }
+
+    private Product product(Long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
@@ -0,0 +1,73 @@
+package com.minh.jewerlystore.search;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+
+class ProductIdFilterTest {
+
+    private ProductIdFilter productIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        productIdFilter = new ProductIdFilter(100, 0.01);
+        productIdFilter.clear();
+    }
+
+    @Test
+    void mightExist_EveryIdPassesUntilLoadCompleted() {
+        // Act & Assert
+        assertTrue(productIdFilter.mightExist(42L));
+
+        productIdFilter.loadCompleted();
+        assertFalse(productIdFilter.mightExist(42L));
+    }
+
+    @Test
+    void mightExist_IndexedIdsAlwaysPass() {
+        // Arrange
+        for (long id = 1; id <= 100; id++) {
+            productIdFilter.index(product(id));
+        }
+        productIdFilter.loadCompleted();
+
+        // Act & Assert
+        for (long id = 1; id <= 100; id++) {
+            assertTrue(productIdFilter.mightExist(id));
+        }
+    }
+
+    @Test
+    void mightExist_GrowsPastExpectedSize() {
+        // Arrange
+        for (long id = 1; id <= 5000; id++) {
+            productIdFilter.index(product(id));
+        }
+        productIdFilter.loadCompleted();
+        productIdFilter.index(product(10_000L));
+
+        // Act
+        int falsePositives = 0;
+        for (long id = 100_000; id < 110_000; id++) {
+            if (productIdFilter.mightExist(id)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        for (long id = 1; id <= 5000; id++) {
+            assertTrue(productIdFilter.mightExist(id));
+        }
+        assertTrue(productIdFilter.mightExist(10_000L));
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    private Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,121 @@
+package com.minh.jewerlystore.search;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex();
+        searchIndex.index(product(1L, "Nhẫn Vàng Đính Đá", "Rings", "PNJ", "Nhẫn vàng 18K"));
+        searchIndex.index(product(2L, "Diamond Ring", "Rings", "Luxury Brand", "Beautiful diamond ring"));
+        searchIndex.index(product(3L, "Silver Necklace", "Necklaces", "Luxury Brand", "Goes well with a ring"));
+    }
+
+    @Test
+    void search_FoldsVietnameseAccents() {
+        // Act
+        List<Long> result = searchIndex.search("nhan vang da", 10);
+
+        // Assert
+        assertEquals(Arrays.asList(1L), result);
+    }
+
+    @Test
+    void search_RanksNameMatchesAboveDescriptionMatches() {
+        // Act
+        List<Long> result = searchIndex.search("ring", 10);
+
+        // Assert
+        assertEquals(2L, result.get(0));
+        assertTrue(result.contains(3L));
+    }
+
+    @Test
+    void search_ReflectsUpdatesAndRemovals() {
+        // Act
+        searchIndex.index(product(2L, "Emerald Pendant", "Pendants", "Luxury Brand", null));
+        searchIndex.remove(3L);
+
+        // Assert
+        assertTrue(searchIndex.search("ring", 10).isEmpty());
+        assertEquals(Arrays.asList(2L), searchIndex.search("EMERALD", 10));
+    }
+
+    @Test
+    void fuzzySearch_MatchesMisspelledNamesAndBrands() {
+        // Act & Assert
+        assertTrue(searchIndex.search("diamnd", 10).isEmpty());
+        assertEquals(Arrays.asList(2L), searchIndex.fuzzySearch("diamnd", 10));
+        assertEquals(Arrays.asList(3L), searchIndex.fuzzySearch("neckalce", 10));
+        assertEquals(2, searchIndex.fuzzySearch("luxery", 10).size());
+        assertTrue(searchIndex.fuzzySearch("rng", 10).isEmpty());
+    }
+
+    @Test
+    void fuzzySearch_KeepsExactMatchesAheadOfNearMisses() {
+        // Arrange
+        searchIndex.index(product(4L, "Silver Ring", "Rings", "PNJ", null));
+        searchIndex.index(product(5L, "Silvr Charm", "Charms", "PNJ", null));
+
+        // Act
+        List<Long> result = searchIndex.fuzzySearch("silver", 10);
+
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals(5L, result.get(2));
+    }
+
+    @Test
+    void fuzzySearch_ForgetsWordsOnlyWhenTheirLastProductGoes() {
+        // Act
+        searchIndex.index(product(2L, "Emerald Pendant", "Pendants", "Luxury Brand", null));
+        searchIndex.remove(3L);
+
+        // Assert: "diamond" left with the rename, "luxury" is still used by product 2
+        assertTrue(searchIndex.fuzzySearch("diamnd", 10).isEmpty());
+        assertEquals(Arrays.asList(2L), searchIndex.fuzzySearch("luxery", 10));
+        assertEquals(Arrays.asList(2L), searchIndex.fuzzySearch("emerld", 10));
+    }
+
+    @Test
+    void fuzzySearch_DeletedWordsDoNotCrowdOutLiveOnes() {
+        // Arrange: more near misses of "diamond" than the expansion cap, all deleted again
+        for (char c = 'a'; c <= 'z'; c++) {
+            if (c != 'd') {
+                searchIndex.index(product(100L + c, "Diamon" + c, "Rings", "PNJ", null));
+            }
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            searchIndex.remove(100L + c);
+        }
+
+        // Act
+        List<Long> result = searchIndex.fuzzySearch("diamonz", 10);
+
+        // Assert
+        assertEquals(Arrays.asList(2L), result);
+    }
+
+    private Product product(Long id, String name, String category, String brand, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setDescription(description);
+        product.setPrice(new BigDecimal("100.00"));
+        return product;
+    }
+}
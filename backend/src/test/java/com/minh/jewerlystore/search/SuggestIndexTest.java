@@ -0,0 +1,103 @@
+package com.minh.jewerlystore.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.minh.jewerlystore.entity.Order;
+import com.minh.jewerlystore.entity.OrderItem;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
+import com.minh.jewerlystore.payload.dto.ProductSalesDTO;
+import com.minh.jewerlystore.repository.OrderRepository;
+
+class SuggestIndexTest {
+
+    private SuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.sumQuantityByProduct())
+                .thenReturn(Collections.singletonList(new ProductSalesDTO(2L, 5L)));
+        suggestIndex = new SuggestIndex(orderRepository);
+        suggestIndex.clear();
+        suggestIndex.index(product(1L, "Diamond Ring", "Luxury Brand", 10));
+        suggestIndex.index(product(2L, "Diamond Necklace", "PNJ", 10));
+        suggestIndex.index(product(3L, "Nhẫn Vàng Đính Đá", "PNJ", 10));
+        suggestIndex.loadCompleted();
+    }
+
+    @Test
+    void suggest_RanksByUnitsSold() {
+        // Act & Assert
+        assertEquals(Arrays.asList("Diamond Necklace", "Diamond Ring"), suggestIndex.suggest("dia", 10));
+        assertEquals(Arrays.asList("Diamond Ring"), suggestIndex.suggest("diamond r", 10));
+        assertEquals(Arrays.asList("Diamond Necklace"), suggestIndex.suggest("dia", 1));
+    }
+
+    @Test
+    void suggest_CompletesWordsInsideNamesAndBrands() {
+        // Act & Assert
+        assertEquals(Arrays.asList("Diamond Ring"), suggestIndex.suggest("ring", 10));
+        assertEquals(Arrays.asList("PNJ"), suggestIndex.suggest("pn", 10));
+        assertEquals(Arrays.asList("Nhẫn Vàng Đính Đá"), suggestIndex.suggest("vang d", 10));
+    }
+
+    @Test
+    void suggest_FollowsRenamesDeletesAndSales() {
+        // Act
+        suggestIndex.index(product(1L, "Diamond Earrings", "Luxury Brand", 10));
+        suggestIndex.remove(2L);
+        suggestIndex.index(product(4L, "Diamond Bracelet", "PNJ", 10));
+        suggestIndex.onOrderPlaced(orderOf(4L, 3));
+
+        // Assert
+        assertEquals(Arrays.asList("Diamond Bracelet", "Diamond Earrings"), suggestIndex.suggest("diamond", 10));
+        assertTrue(suggestIndex.suggest("diamond r", 10).isEmpty());
+        assertTrue(suggestIndex.suggest("neck", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_IgnoresStockChangesThatAreNotSales() {
+        // Act: a stock correction on the ring is not an order
+        suggestIndex.index(product(1L, "Diamond Ring", "Luxury Brand", 0));
+
+        // Assert
+        assertEquals(Arrays.asList("Diamond Necklace", "Diamond Ring"), suggestIndex.suggest("dia", 10));
+    }
+
+    @Test
+    void suggest_CountsOrderedQuantities() {
+        // Act: 6 rings outsell the necklace's 5
+        suggestIndex.onOrderPlaced(orderOf(1L, 6));
+
+        // Assert
+        assertEquals(Arrays.asList("Diamond Ring", "Diamond Necklace"), suggestIndex.suggest("dia", 10));
+    }
+
+    private OrderPlacedEvent orderOf(Long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product(productId, null, null, 0));
+        item.setQuantity(quantity);
+        Order order = new Order();
+        order.getItems().add(item);
+        return new OrderPlacedEvent(new User(), order);
+    }
+
+    private Product product(Long id, String name, String brand, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setStockQuantity(stock);
+        return product;
+    }
+}
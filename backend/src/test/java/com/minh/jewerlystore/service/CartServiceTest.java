@@ -1,31 +1,42 @@
 package com.minh.jewerlystore.service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
-import org.mockito.InjectMocks;
+import static org.mockito.ArgumentMatchers.anyList;
 import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.minh.jewerlystore.entity.Cart;
-import com.minh.jewerlystore.entity.CartItem;
+import com.minh.jewerlystore.cart.CartLine;
+import com.minh.jewerlystore.cart.CartPersister;
+import com.minh.jewerlystore.cart.CartSnapshot;
+import com.minh.jewerlystore.cart.CartStore;
+import com.minh.jewerlystore.entity.Order;
 import com.minh.jewerlystore.entity.Product;
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest.Operation;
+import com.minh.jewerlystore.payload.request.CartOperationsRequest.Type;
 import com.minh.jewerlystore.payload.response.CartResponse;
-import com.minh.jewerlystore.repository.CartRepository;
-import com.minh.jewerlystore.repository.ProductRepository;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
 import com.minh.jewerlystore.service.impl.CartServiceImpl;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -34,21 +45,23 @@ import jakarta.persistence.EntityNotFoundException;
 class CartServiceTest {
 
     @Mock
-    private CartRepository cartRepository;
+    private CartPersister cartPersister;
 
     @Mock
-    private ProductRepository productRepository;
+    private ProductService productService;
 
-    @InjectMocks
+    private CartStore cartStore;
     private CartServiceImpl cartService;
 
     private User testUser;
     private Product testProduct;
-    private Cart testCart;
-    private CartItem testCartItem;
+    private CartSnapshot testCart;
 
     @BeforeEach
     void setUp() {
+        cartStore = new CartStore(cartPersister, 1000, 200, 30);
+        cartService = new CartServiceImpl(cartStore, productService);
+
         // Setup test user
         testUser = new User();
         testUser.setId(1L);
@@ -60,235 +73,278 @@ class CartServiceTest {
         testProduct.setName("Test Product");
         testProduct.setPrice(new BigDecimal("99.99"));
         testProduct.setImageUrl("test-image.jpg");
-
-        // Setup test cart
-        testCart = new Cart();
-        testCart.setId(1L);
-        testCart.setUser(testUser);
-        testCart.setItems(new ArrayList<>());
-
-        // Setup test cart item
-        testCartItem = new CartItem();
-        testCartItem.setId(1L);
-        testCartItem.setCart(testCart);
-        testCartItem.setProduct(testProduct);
-        testCartItem.setQuantity(1);
+        lenient().when(productService.findProductById(1L)).thenReturn(Optional.of(testProduct));
+        lenient().when(cartPersister.reserveItemIds()).thenReturn(new CartPersister.ItemIdBlock(100, 149));
+        // Products 1 and 2 exist; anything else is reported missing
+        lenient().when(productService.getProductsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return new ProductBatchResponse(
+                    ids.stream().filter(id -> id <= 2L).map(this::detail).toList(),
+                    ids.stream().filter(id -> id > 2L).toList());
+        });
+
+        // Setup stored cart with one line for the test product
+        testCart = new CartSnapshot(1L, 1L, Arrays.asList(new CartLine(10L, 1L, 1)), 0);
     }
 
     @Test
     void getCart_ExistingCart_Success() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
         CartResponse response = cartService.getCart(testUser);
 
         // Assert
         assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-        assertEquals(BigDecimal.ZERO, response.getTotalAmount());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
+        assertEquals(1L, response.getId());
+        assertEquals(new BigDecimal("99.99"), response.getTotalAmount());
+        assertEquals(10L, response.getItems().get(0).getId());
+        assertEquals(0, cartStore.dirtyCount());
     }
 
     @Test
     void getCart_NewCart_Success() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.empty());
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(null);
 
         // Act
         CartResponse response = cartService.getCart(testUser);
 
         // Assert
         assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
+        assertNull(response.getId());
         assertEquals(BigDecimal.ZERO, response.getTotalAmount());
+        assertEquals(1, cartStore.dirtyCount());
+    }
+
+    @Test
+    void getCart_LoadsOnlyOnce() {
+        // Arrange
+        when(cartPersister.load(testUser)).thenReturn(testCart);
+
+        // Act
+        cartService.getCart(testUser);
+        cartService.getCart(testUser);
 
         // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository).save(any(Cart.class));
+        verify(cartPersister, times(1)).load(any());
     }
 
     @Test
     void addToCart_NewItem_Success() {
         // Arrange
-        testCart.getItems().clear();
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(null);
 
         // Act
-        CartResponse response = cartService.addToCart(testUser, 1L, 1);
+        CartResponse response = cartService.addToCart(testUser, 1L, 2);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(productRepository).findById(1L);
-        verify(cartRepository).save(any(Cart.class));
+        assertEquals(1, response.getItems().size());
+        assertEquals(100L, response.getItems().get(0).getId());
+        assertEquals(2, response.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("199.98"), response.getTotalAmount());
+        assertEquals(1, cartStore.dirtyCount());
     }
 
     @Test
     void addToCart_ExistingItem_Success() {
         // Arrange
-        testCart.getItems().add(testCartItem);
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
         CartResponse response = cartService.addToCart(testUser, 1L, 1);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(productRepository).findById(1L);
-        verify(cartRepository).save(any(Cart.class));
+        assertEquals(1, response.getItems().size());
+        assertEquals(2, response.getItems().get(0).getQuantity());
+        assertEquals(10L, response.getItems().get(0).getId());
     }
 
     @Test
     void addToCart_ProductNotFound() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        when(productService.findProductById(2L)).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(EntityNotFoundException.class, () -> 
-            cartService.addToCart(testUser, 1L, 1)
+        assertThrows(EntityNotFoundException.class, () ->
+            cartService.addToCart(testUser, 2L, 1)
         );
+        assertEquals(0, cartStore.dirtyCount());
+    }
 
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(productRepository).findById(1L);
-        verify(cartRepository, never()).save(any(Cart.class));
+    @Test
+    void addToCart_InvalidQuantity() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            cartService.addToCart(testUser, 1L, 0)
+        );
     }
 
     @Test
     void updateCartItemQuantity_Success() {
         // Arrange
-        testCart.getItems().add(testCartItem);
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
-        CartResponse response = cartService.updateCartItemQuantity(testUser, 1L, 2);
+        CartResponse response = cartService.updateCartItemQuantity(testUser, 10L, 3);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository).save(any(Cart.class));
+        assertEquals(3, response.getItems().get(0).getQuantity());
+        assertEquals(1, cartStore.dirtyCount());
     }
 
     @Test
     void updateCartItemQuantity_RemoveWhenZeroQuantity() {
         // Arrange
-        testCart.getItems().add(testCartItem);
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
-        CartResponse response = cartService.updateCartItemQuantity(testUser, 1L, 0);
+        CartResponse response = cartService.updateCartItemQuantity(testUser, 10L, 0);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-        assertTrue(testCart.getItems().isEmpty());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository).save(any(Cart.class));
+        assertTrue(response.getItems().isEmpty());
+        assertEquals(BigDecimal.ZERO, response.getTotalAmount());
     }
 
     @Test
     void updateCartItemQuantity_CartNotFound() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.empty());
+        when(cartPersister.load(testUser)).thenReturn(null);
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () ->
-            cartService.updateCartItemQuantity(testUser, 1L, 2)
+            cartService.updateCartItemQuantity(testUser, 10L, 2)
         );
+        assertEquals(0, cartStore.dirtyCount());
+    }
 
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository, never()).save(any(Cart.class));
+    @Test
+    void updateCartItemQuantity_AddressesLineByItemId() {
+        // Arrange
+        when(cartPersister.load(testUser)).thenReturn(testCart);
+
+        // Act & Assert
+        // 1 is the product id, not the id of its cart line
+        assertThrows(EntityNotFoundException.class, () ->
+            cartService.updateCartItemQuantity(testUser, 1L, 2)
+        );
+        assertEquals(0, cartStore.dirtyCount());
     }
 
     @Test
     void removeFromCart_Success() {
         // Arrange
-        testCart.getItems().add(testCartItem);
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
-        CartResponse response = cartService.removeFromCart(testUser, 1L);
+        CartResponse response = cartService.removeFromCart(testUser, 10L);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(testCart.getId(), response.getId());
-        assertTrue(testCart.getItems().isEmpty());
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository).save(any(Cart.class));
+        assertTrue(response.getItems().isEmpty());
+        assertEquals(1, cartStore.dirtyCount());
     }
 
     @Test
     void removeFromCart_ItemNotFound() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
+        when(cartPersister.load(testUser))
+                .thenReturn(new CartSnapshot(1L, 1L, Collections.emptyList(), 0));
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () ->
-            cartService.removeFromCart(testUser, 1L)
+            cartService.removeFromCart(testUser, 10L)
         );
-
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository, never()).save(any(Cart.class));
+        assertEquals(0, cartStore.dirtyCount());
     }
 
     @Test
     void clearCart_Success() {
         // Arrange
-        testCart.getItems().add(testCartItem);
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.of(testCart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+        when(cartPersister.load(testUser)).thenReturn(testCart);
 
         // Act
         cartService.clearCart(testUser);
 
         // Assert
-        assertTrue(testCart.getItems().isEmpty());
+        assertTrue(cartStore.read(testUser).lines().isEmpty());
+        assertEquals(1, cartStore.dirtyCount());
+    }
 
-        // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository).save(any(Cart.class));
+    @Test
+    void onOrderPlaced_ClearsCart() {
+        // Arrange
+        when(cartPersister.load(testUser)).thenReturn(testCart);
+
+        // Act
+        cartService.onOrderPlaced(new OrderPlacedEvent(testUser, new Order()));
+
+        // Assert
+        assertTrue(cartStore.read(testUser).lines().isEmpty());
     }
 
     @Test
     void clearCart_CartNotFound() {
         // Arrange
-        when(cartRepository.findByUser(testUser)).thenReturn(Optional.empty());
+        when(cartPersister.load(testUser)).thenReturn(null);
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () ->
             cartService.clearCart(testUser)
         );
+    }
+
+    @Test
+    void applyOperations_AppliesAllInOrder() {
+        // Arrange
+        when(cartPersister.load(testUser)).thenReturn(testCart);
+        List<Operation> operations = Arrays.asList(
+                new Operation(Type.ADD, 1L, 2),
+                new Operation(Type.ADD, 2L, 1),
+                new Operation(Type.SET, 2L, 4),
+                new Operation(Type.REMOVE, 1L, null));
+
+        // Act
+        CartResponse response = cartService.applyOperations(testUser, operations);
+
+        // Assert
+        assertEquals(1, response.getItems().size());
+        assertEquals(2L, response.getItems().get(0).getProductId());
+        assertEquals(4, response.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("40.00"), response.getTotalAmount());
+        assertEquals(1, cartStore.dirtyCount());
+    }
+
+    @Test
+    void applyOperations_MissingProductChangesNothing() {
+        // Arrange
+        when(cartPersister.load(testUser)).thenReturn(testCart);
+        List<Operation> operations = Arrays.asList(
+                new Operation(Type.REMOVE, 1L, null),
+                new Operation(Type.ADD, 3L, 1));
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () ->
+            cartService.applyOperations(testUser, operations)
+        );
+        assertEquals(1, cartStore.read(testUser).lines().size());
+        assertEquals(0, cartStore.dirtyCount());
+    }
+
+    @Test
+    void applyOperations_InvalidQuantity() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            cartService.applyOperations(testUser, Arrays.asList(new Operation(Type.SET, 1L, -1)))
+        );
 
         // Verify
-        verify(cartRepository).findByUser(testUser);
-        verify(cartRepository, never()).save(any(Cart.class));
+        verify(cartPersister, never()).load(any());
+    }
+
+    private ProductDetailDTO detail(Long id) {
+        return id == 1L
+                ? new ProductDetailDTO(1L, "Test Product", null, new BigDecimal("99.99"), "Rings", null, null, 5, "test-image.jpg", 0L)
+                : new ProductDetailDTO(2L, "Second Product", null, new BigDecimal("10.00"), "Rings", null, null, 5, "second.jpg", 0L);
     }
-} 
\ No newline at end of file
+}
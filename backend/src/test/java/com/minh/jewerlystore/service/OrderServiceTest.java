@@ -4,6 +4,7 @@ import com.minh.jewerlystore.entity.Order;
 import com.minh.jewerlystore.entity.OrderStatus;
 import com.minh.jewerlystore.entity.Product;
 import com.minh.jewerlystore.entity.User;
+import com.minh.jewerlystore.event.OrderPlacedEvent;
 import com.minh.jewerlystore.exception.InsufficientStockException;
 import com.minh.jewerlystore.payload.request.CheckoutRequest;
 import com.minh.jewerlystore.payload.response.CartResponse;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -39,6 +41,9 @@ class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -93,6 +98,7 @@ class OrderServiceTest {
         // Arrange
         when(cartService.getCart(testUser)).thenReturn(cartResponse);
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.decrementStock(1L, 2)).thenReturn(1);
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
         // Act
@@ -105,12 +111,13 @@ class OrderServiceTest {
 
         // Verify
         verify(cartService).getCart(testUser);
-        verify(productRepository).save(testProduct);
+        // Stock is taken in the database, not by saving the loaded entity
+        verify(productRepository).decrementStock(1L, 2);
+        verify(productRepository, never()).save(any(Product.class));
         verify(orderRepository).save(any(Order.class));
-        verify(cartService).clearCart(testUser);
-
-        // Verify product stock was updated
-        assertEquals(8, testProduct.getStockQuantity());
+        verify(eventPublisher).publishEvent(any(OrderPlacedEvent.class));
+        // Cleared by the cart service after commit, not inside the order transaction
+        verify(cartService, never()).clearCart(testUser);
     }
 
     @Test
@@ -129,7 +136,24 @@ class OrderServiceTest {
         verify(cartService).getCart(testUser);
         verify(productRepository).findById(1L);
         verify(orderRepository, never()).save(any(Order.class));
-        verify(cartService, never()).clearCart(testUser);
+        verify(eventPublisher, never()).publishEvent(any(OrderPlacedEvent.class));
+    }
+
+    @Test
+    void createOrder_StockTakenByConcurrentCheckout() {
+        // Arrange: enough stock when checked, gone by the time it is decremented
+        when(cartService.getCart(testUser)).thenReturn(cartResponse);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.decrementStock(1L, 2)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> {
+            orderService.createOrder(testUser, checkoutRequest);
+        });
+
+        // Verify
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -0,0 +1,163 @@
+package com.minh.jewerlystore.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.PayloadTooLargeException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.response.ProductImportResponse;
+import com.minh.jewerlystore.repository.ProductRepository;
+import com.minh.jewerlystore.service.impl.ProductImportServiceImpl;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportServiceImpl productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportServiceImpl(productRepository, transactionManager, entityManager,
+                eventPublisher, new ObjectMapper(), 2, 10, DataSize.ofKilobytes(4));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importProducts_Csv_InsertsValidRowsInChunksAndReportsInvalidOnes() throws Exception {
+        // Arrange
+        String csv = "name,price,category,brand,description,stockQuantity\r\n"
+                + "Diamond Ring,999.99,Rings,PNJ,\"Classic, \"\"solitaire\"\" cut\",5\r\n"
+                + "Gold Necklace,abc,Necklaces,DOJI,,1\r\n"
+                + "\"Pearl\nEarrings\",120,Earrings,,,\r\n"
+                + ",10,Rings,,,\r\n"
+                + "Silver Bracelet,80,Bracelets,,,2\r\n";
+        MockMultipartFile file = new MockMultipartFile("file", "feed.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ProductImportResponse report = productImportService.importProducts(file);
+
+        // Assert
+        assertEquals(5, report.getTotalRows());
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertTrue(report.getErrors().get(0).getMessage().contains("price"));
+        assertEquals(6, report.getErrors().get(1).getLine());
+        assertTrue(report.getErrors().get(1).getMessage().contains("name"));
+
+        // Verify
+        ArgumentCaptor<List<Product>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(2)).saveAll(chunks.capture());
+        Product ring = chunks.getAllValues().get(0).get(0);
+        assertEquals("Classic, \"solitaire\" cut", ring.getDescription());
+        assertEquals(5, ring.getStockQuantity());
+    }
+
+    @Test
+    void importProducts_Ndjson_ReportsMalformedLines() throws Exception {
+        // Arrange
+        String ndjson = "{\"name\":\"Diamond Ring\",\"price\":999.99,\"category\":\"Rings\"}\n"
+                + "\n"
+                + "{\"name\":\"Broken\"\n"
+                + "{\"name\":\"Gold Necklace\",\"price\":-1,\"category\":\"Necklaces\"}\n";
+        MockMultipartFile file = new MockMultipartFile("file", "feed.ndjson", "application/x-ndjson",
+                ndjson.getBytes(StandardCharsets.UTF_8));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ProductImportResponse report = productImportService.importProducts(file);
+
+        // Assert
+        assertEquals(3, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(4, report.getErrors().get(1).getLine());
+        assertFalse(report.isErrorsTruncated());
+    }
+
+    @Test
+    void importProducts_FailedChunk_RetriesRowsIndividually() throws Exception {
+        // Arrange
+        String csv = "name,price,category\nDiamond Ring,999.99,Rings\nGold Necklace,450,Necklaces\n";
+        MockMultipartFile file = new MockMultipartFile("file", "feed.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+        when(productRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        // Act
+        ProductImportResponse report = productImportService.importProducts(file);
+
+        // Assert
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals("value too long", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void importProducts_CsvHeaderMissingRequiredColumn_Throws() {
+        // Arrange: column names are matched ignoring case, but there is no category column
+        String csv = "Name,PRICE,brand\nDiamond Ring,999.99,Luxury Brand\n";
+        MockMultipartFile file = new MockMultipartFile("file", "feed.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> productImportService.importProducts(file));
+        assertEquals("CSV header is missing required columns: category", e.getMessage());
+    }
+
+    @Test
+    void importProducts_UnsupportedFile_Throws() {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "feed.xlsx", "application/octet-stream", new byte[0]);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productImportService.importProducts(file));
+    }
+
+    @Test
+    void importProducts_RawBodyOverLimit_Throws() {
+        // Arrange
+        String csv = "name,price,category\n" + "Ring,,Rings\n".repeat(1000);
+        ByteArrayInputStream body = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThrows(PayloadTooLargeException.class, () -> productImportService.importProducts(body, null, "text/csv"));
+    }
+}
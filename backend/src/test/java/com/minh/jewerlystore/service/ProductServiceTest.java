@@ -1,28 +1,74 @@
 package com.minh.jewerlystore.service;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minh.jewerlystore.cache.ProductCache;
+import com.minh.jewerlystore.cache.SearchResultCache;
+import com.minh.jewerlystore.cache.SearchResultCache.SearchKey;
+import com.minh.jewerlystore.changefeed.ProductChangeFeed;
+import com.minh.jewerlystore.config.AppConstants;
 import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.entity.ProductChange;
+import com.minh.jewerlystore.event.ProductChangeType;
+import com.minh.jewerlystore.event.ProductChangedEvent;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+import com.minh.jewerlystore.payload.dto.ProductStockDTO;
+import com.minh.jewerlystore.payload.dto.ProductSummaryDTO;
+import com.minh.jewerlystore.payload.request.AvailabilityRequest;
+import com.minh.jewerlystore.payload.response.AvailabilityResponse;
+import com.minh.jewerlystore.payload.response.ProductBatchResponse;
+import com.minh.jewerlystore.payload.response.ProductChangesResponse;
+import com.minh.jewerlystore.payload.response.ProductPageResponse;
 import com.minh.jewerlystore.repository.ProductRepository;
+import com.minh.jewerlystore.search.FacetIndex;
+import com.minh.jewerlystore.search.PriceIndex;
+import com.minh.jewerlystore.search.ProductIdFilter;
+import com.minh.jewerlystore.search.ProductSearchIndex;
+import com.minh.jewerlystore.search.SuggestIndex;
 import com.minh.jewerlystore.service.impl.ProductServiceImpl;
+import com.minh.jewerlystore.store.ColumnarProductStore;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +77,42 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private PriceIndex priceIndex;
+
+    @Mock
+    private SuggestIndex suggestIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductIdFilter productIdFilter;
+
+    @Mock
+    private ProductChangeFeed productChangeFeed;
+
+    @Mock
+    private ColumnarProductStore productStore;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -48,6 +130,7 @@ class ProductServiceTest {
         testProduct.setColor("Silver");
         testProduct.setStockQuantity(10);
         testProduct.setImageUrl("ring.jpg");
+        lenient().when(productIdFilter.mightExist(any())).thenReturn(true);
     }
 
     @Test
@@ -68,6 +151,69 @@ class ProductServiceTest {
         verify(productRepository).findAll();
     }
 
+    @Test
+    void getProducts_FirstPage_ReturnsNextCursor() {
+        // Arrange
+        when(productRepository.findSummaries(any(Pageable.class)))
+            .thenReturn(Arrays.asList(summaryOf(testProduct), new ProductSummaryDTO(2L, "Gold Ring", new BigDecimal("1500.00"), "Rings", null, 0L)));
+
+        // Act
+        ProductPageResponse result = productService.getProducts(null, 1, "id", "asc");
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.getContent().size());
+        assertEquals(testProduct.getId(), result.getContent().get(0).id());
+        assertTrue(result.isHasNext());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    void getProducts_NextPage_SeeksPastCursor() {
+        // Arrange
+        when(productRepository.findSummaries(any(Pageable.class))).thenReturn(Arrays.asList(summaryOf(testProduct), summaryOf(new Product())));
+        String cursor = productService.getProducts(null, 1, "price", "desc").getNextCursor();
+        when(productRepository.findSummariesAfterPriceDesc(eq(new BigDecimal("999.99")), eq(1L), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        ProductPageResponse result = productService.getProducts(cursor, 1, "price", "desc");
+
+        // Assert
+        assertTrue(result.getContent().isEmpty());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+
+        // Verify
+        verify(productRepository).findSummariesAfterPriceDesc(eq(new BigDecimal("999.99")), eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void getProducts_CursorForDifferentSort() {
+        // Arrange
+        when(productRepository.findSummaries(any(Pageable.class))).thenReturn(Arrays.asList(summaryOf(testProduct), summaryOf(new Product())));
+        String cursor = productService.getProducts(null, 1, "id", "asc").getNextCursor();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProducts(cursor, 1, "price", "asc")
+        );
+    }
+
+    @Test
+    void getProducts_SizeAboveMaximum_Rejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProducts(null, AppConstants.MAX_PAGE_SIZE + 1, "id", "asc")
+        );
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProducts(null, 0, "id", "asc")
+        );
+
+        // Verify
+        verify(productRepository, never()).findSummaries(any(Pageable.class));
+    }
+
     @Test
     void getProductById_Success() {
         // Arrange
@@ -85,6 +231,21 @@ class ProductServiceTest {
         verify(productRepository).findById(1L);
     }
 
+    @Test
+    void getProductById_CacheHit() {
+        // Arrange
+        when(productCache.getById(1L)).thenReturn(testProduct);
+
+        // Act
+        Product result = productService.getProductById(1L);
+
+        // Assert
+        assertEquals(testProduct.getName(), result.getName());
+
+        // Verify
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     void getProductById_NotFound() {
         // Arrange
@@ -99,17 +260,45 @@ class ProductServiceTest {
         verify(productRepository).findById(1L);
     }
 
+    @Test
+    void findProductById_ServedFromColumnarStore() {
+        // Arrange
+        when(productStore.isReady()).thenReturn(true);
+        when(productStore.get(1L)).thenReturn(Optional.of(testProduct));
+
+        // Act
+        Optional<Product> result = productService.findProductById(1L);
+
+        // Assert
+        assertEquals(testProduct.getName(), result.get().getName());
+
+        // Verify
+        verify(productCache, never()).getById(any());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void findProductById_RejectedByIdFilter() {
+        // Arrange
+        when(productIdFilter.mightExist(99L)).thenReturn(false);
+
+        // Act
+        Optional<Product> result = productService.findProductById(99L);
+
+        // Assert
+        assertTrue(result.isEmpty());
+
+        // Verify
+        verify(productCache, never()).getById(any());
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     void searchProducts_Success() {
         // Arrange
         List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByFilters(
-            "Rings",
-            new BigDecimal("500.00"),
-            new BigDecimal("1000.00"),
-            "Luxury Brand",
-            "Silver"
-        )).thenReturn(products);
+        when(searchResultCache.get(any(SearchKey.class))).thenReturn(null);
+        when(productRepository.findBy(anySpecification(), anyQuery())).thenReturn(products);
 
         // Act
         List<Product> result = productService.searchProducts(
@@ -117,7 +306,10 @@ class ProductServiceTest {
             new BigDecimal("500.00"),
             new BigDecimal("1000.00"),
             "Luxury Brand",
-            "Silver"
+            "Silver",
+            "price",
+            "asc",
+            20
         );
 
         // Assert
@@ -126,23 +318,79 @@ class ProductServiceTest {
         assertEquals(testProduct.getName(), result.get(0).getName());
 
         // Verify
-        verify(productRepository).findByFilters(
-            "Rings",
-            new BigDecimal("500.00"),
-            new BigDecimal("1000.00"),
-            "Luxury Brand",
-            "Silver"
+        verify(productRepository).findBy(anySpecification(), anyQuery());
+        verify(searchResultCache).put(any(SearchKey.class), eq(Arrays.asList(1L)), eq(0L));
+    }
+
+    @Test
+    void searchProducts_CachedIds_SkipsQuery() {
+        // Arrange
+        when(searchResultCache.get(any(SearchKey.class))).thenReturn(Arrays.asList(1L));
+        when(productCache.getById(1L)).thenReturn(testProduct);
+
+        // Act
+        List<Product> result = productService.searchProducts("Rings", null, null, null, null, "id", "asc", 20);
+
+        // Assert
+        assertEquals(Arrays.asList(testProduct), result);
+
+        // Verify
+        verify(productRepository, never()).findBy(anySpecification(), anyQuery());
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void searchProducts_PriceOnly_UsesPriceIndex() {
+        // Arrange
+        when(priceIndex.isReady()).thenReturn(true);
+        when(priceIndex.idsInRange(any(BigDecimal.class), isNull(), eq(20), eq(true))).thenReturn(Arrays.asList(1L));
+        when(productCache.getById(1L)).thenReturn(testProduct);
+
+        // Act
+        List<Product> result = productService.searchProducts(null, new BigDecimal("500.00"), null, "", null, "price", "desc", 20);
+
+        // Assert
+        assertEquals(Arrays.asList(testProduct), result);
+
+        // Verify
+        verify(searchResultCache, never()).get(any(SearchKey.class));
+        verify(productRepository, never()).findBy(anySpecification(), anyQuery());
+    }
+
+    @Test
+    void searchProducts_WithoutLimit_ReturnsEveryMatch() {
+        // Arrange: the sort field is matched ignoring case, as in getProducts
+        when(priceIndex.isReady()).thenReturn(true);
+        when(priceIndex.idsInRange(isNull(), isNull(), eq(Integer.MAX_VALUE), eq(false))).thenReturn(Arrays.asList(1L));
+        when(productCache.getById(1L)).thenReturn(testProduct);
+
+        // Act
+        List<Product> result = productService.searchProducts(null, null, null, null, null, "Price", "asc", null);
+
+        // Assert
+        assertEquals(Arrays.asList(testProduct), result);
+    }
+
+    @Test
+    void searchProducts_InvalidSortField() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.searchProducts(null, null, null, null, null, "description", "asc", null)
         );
+
+        // Verify
+        verify(productRepository, never()).findBy(anySpecification(), anyQuery());
     }
 
     @Test
     void searchByName_Success() {
         // Arrange
         List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByNameContainingIgnoreCase("Diamond")).thenReturn(products);
+        when(productSearchIndex.search("Diamond", 50)).thenReturn(Arrays.asList(1L));
+        when(productRepository.findAllById(Arrays.asList(1L))).thenReturn(products);
 
         // Act
-        List<Product> result = productService.searchByName("Diamond");
+        List<Product> result = productService.searchByName("Diamond", false);
 
         // Assert
         assertNotNull(result);
@@ -150,7 +398,123 @@ class ProductServiceTest {
         assertEquals(testProduct.getName(), result.get(0).getName());
 
         // Verify
-        verify(productRepository).findByNameContainingIgnoreCase("Diamond");
+        verify(productSearchIndex).search("Diamond", 50);
+    }
+
+    @Test
+    void getProductsByIds_KeepsRequestOrderAndReportsMissing() {
+        // Arrange
+        Product cachedProduct = new Product();
+        cachedProduct.setId(3L);
+        cachedProduct.setName("Gold Necklace");
+        when(productCache.getById(3L)).thenReturn(cachedProduct);
+        when(productIdFilter.mightExist(99L)).thenReturn(false);
+        when(productRepository.findAllById(Arrays.asList(1L, 7L))).thenReturn(Arrays.asList(testProduct));
+
+        // Act
+        ProductBatchResponse result = productService.getProductsByIds(Arrays.asList(3L, 1L, 99L, 3L, 7L));
+
+        // Assert
+        assertEquals(Arrays.asList(3L, 1L), result.getProducts().stream().map(ProductDetailDTO::id).toList());
+        assertEquals(Arrays.asList(99L, 7L), result.getMissing());
+
+        // Verify
+        verify(productRepository).findAllById(Arrays.asList(1L, 7L));
+    }
+
+    @Test
+    void checkAvailability_SumsLinesPerProductInOneQuery() {
+        // Arrange
+        AvailabilityRequest request = new AvailabilityRequest();
+        request.setItems(Arrays.asList(
+                new AvailabilityRequest.Line(1L, 6),
+                new AvailabilityRequest.Line(2L, 1),
+                new AvailabilityRequest.Line(1L, 5),
+                new AvailabilityRequest.Line(99L, 1)));
+        when(productRepository.findStockQuantities(any())).thenReturn(Arrays.asList(
+                new ProductStockDTO(1L, 10),
+                new ProductStockDTO(2L, 3)));
+
+        // Act
+        AvailabilityResponse result = productService.checkAvailability(request);
+
+        // Assert
+        assertFalse(result.isAllAvailable());
+        assertEquals(4, result.getItems().size());
+        assertFalse(result.getItems().get(0).isAvailable());
+        assertTrue(result.getItems().get(1).isAvailable());
+        assertEquals(3, result.getItems().get(1).getStockQuantity());
+        assertNull(result.getItems().get(3).getStockQuantity());
+        assertFalse(result.getItems().get(3).isAvailable());
+
+        // Verify
+        verify(productRepository).findStockQuantities(any());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void checkAvailability_InvalidQuantity() {
+        // Arrange
+        AvailabilityRequest request = new AvailabilityRequest();
+        request.setItems(Arrays.asList(new AvailabilityRequest.Line(1L, 0)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.checkAvailability(request)
+        );
+    }
+
+    @Test
+    void getChanges_ReturnsOnePageOfChangedAndDeletedIds() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(productChangeFeed.read(10L, 3)).thenReturn(Arrays.asList(
+                new ProductChange(3L, 11L, 1L, ProductChangeType.CREATED, now),
+                new ProductChange(5L, 12L, 2L, ProductChangeType.UPDATED, now),
+                new ProductChange(4L, 13L, 2L, ProductChangeType.DELETED, now)));
+        when(productRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(testProduct));
+
+        // Act
+        ProductChangesResponse result = productService.getChanges(10L, 2);
+
+        // Assert
+        assertEquals(1, result.getChanged().size());
+        assertEquals(testProduct.getId(), result.getChanged().get(0).id());
+        // Product 2 was deleted in the next page, so its row is already gone
+        assertEquals(Arrays.asList(2L), result.getDeleted());
+        assertEquals(12L, result.getNextSince());
+        assertTrue(result.isHasMore());
+    }
+
+    @Test
+    void getChanges_WithoutSince_ReturnsHead() {
+        // Arrange
+        when(productChangeFeed.head()).thenReturn(42L);
+
+        // Act
+        ProductChangesResponse result = productService.getChanges(null, null);
+
+        // Assert
+        assertEquals(42L, result.getNextSince());
+        assertTrue(result.getChanged().isEmpty());
+        assertFalse(result.isHasMore());
+
+        // Verify
+        verify(productChangeFeed, never()).read(anyLong(), anyInt());
+    }
+
+    @Test
+    void getProductsByIds_TooManyIds() {
+        // Arrange
+        List<Long> ids = Stream.iterate(1L, id -> id + 1).limit(101).toList();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProductsByIds(ids)
+        );
+
+        // Verify
+        verify(productRepository, never()).findAllById(any());
     }
 
     @Test
@@ -168,6 +532,7 @@ class ProductServiceTest {
 
         // Verify
         verify(productRepository).save(testProduct);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -198,6 +563,24 @@ class ProductServiceTest {
         verify(productRepository).save(any(Product.class));
     }
 
+    @Test
+    void updateProduct_StaleVersion_ThrowsConflict() {
+        // Arrange
+        testProduct.setVersion(3L);
+        Product staleEdit = new Product();
+        staleEdit.setName("Updated Ring");
+        staleEdit.setVersion(2L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () ->
+            productService.updateProduct(1L, staleEdit)
+        );
+
+        // Verify
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
     @Test
     void updateProduct_NotFound() {
         // Arrange
@@ -215,10 +598,65 @@ class ProductServiceTest {
 
     @Test
     void deleteProduct_Success() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
         // Act
         productService.deleteProduct(1L);
 
         // Verify
-        verify(productRepository).deleteById(1L);
+        verify(productRepository).delete(testProduct);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void deleteProduct_NotFound() {
+        // Arrange
+        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> productService.deleteProduct(99L));
+
+        // Verify
+        verify(productRepository, never()).delete(any(Product.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void exportProducts_WritesOneJsonLinePerProduct() throws Exception {
+        // Arrange
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Gold Necklace");
+        second.setPrice(new BigDecimal("499.99"));
+        when(productRepository.streamAllOrderById()).thenReturn(Stream.of(testProduct, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        productService.exportProducts(out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], Product.class).getId());
+        assertEquals("Gold Necklace", objectMapper.readValue(lines[1], Product.class).getName());
+
+        // Verify
+        verify(entityManager).detach(testProduct);
+        verify(entityManager).detach(second);
+    }
+
+    private ProductSummaryDTO summaryOf(Product product) {
+        return new ProductSummaryDTO(product.getId(), product.getName(), product.getPrice(), product.getCategory(),
+                product.getImageUrl(), product.getVersion());
+    }
+
+    // Typed matchers for JpaSpecificationExecutor.findBy, whose raw class matchers are unchecked
+    private static Specification<Product> anySpecification() {
+        return ArgumentMatchers.any();
+    }
+
+    private static Function<FetchableFluentQuery<Product>, List<Product>> anyQuery() {
+        return ArgumentMatchers.any();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.minh.jewerlystore.store;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.minh.jewerlystore.entity.Product;
+import com.minh.jewerlystore.payload.dto.ProductDetailDTO;
+
+class ColumnarProductStoreTest {
+
+    private ColumnarProductStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarProductStore();
+        store.clear();
+        store.index(product(1L, "Diamond Ring", "999.99", "Rings", 10));
+        store.index(product(2L, "Nhẫn Vàng", "1500.00", "Rings", 3));
+        store.index(product(3L, "Pearl Necklace", "250.50", "Necklaces", null));
+        store.loadCompleted();
+    }
+
+    @Test
+    void get_RoundTripsEveryField() {
+        // Act
+        Product result = store.get(2L).orElseThrow();
+
+        // Assert
+        assertEquals("Nhẫn Vàng", result.getName());
+        assertEquals("Description of Nhẫn Vàng", result.getDescription());
+        assertEquals(new BigDecimal("1500.00"), result.getPrice());
+        assertEquals("Rings", result.getCategory());
+        assertEquals("PNJ", result.getBrand());
+        assertNull(result.getColor());
+        assertEquals(3, result.getStockQuantity());
+        assertEquals("2.jpg", result.getImageUrl());
+        assertEquals(7L, result.getVersion());
+        assertNull(store.get(3L).orElseThrow().getStockQuantity());
+        assertTrue(store.isReady());
+    }
+
+    @Test
+    void remove_MovesLastProductIntoFreedSlot() {
+        // Act
+        store.remove(1L);
+
+        // Assert
+        assertFalse(store.get(1L).isPresent());
+        assertEquals(2, store.size());
+        assertEquals("Pearl Necklace", store.get(3L).orElseThrow().getName());
+        List<ProductDetailDTO> details = store.getDetails(Arrays.asList(3L, 1L, 2L));
+        assertEquals(Arrays.asList(3L, 2L), details.stream().map(ProductDetailDTO::id).toList());
+    }
+
+    @Test
+    void index_ReplacesAndGrowsPastInitialCapacity() {
+        // Arrange
+        for (long id = 10; id < 5000; id++) {
+            store.index(product(id, "Product " + id, "10.00", "Category " + (id % 7), 1));
+        }
+        for (long id = 10; id < 5000; id += 2) {
+            store.remove(id);
+        }
+
+        // Act
+        store.index(product(1L, "Diamond Ring v2", "1099.99", "Rings", 9));
+
+        // Assert
+        assertEquals("Diamond Ring v2", store.get(1L).orElseThrow().getName());
+        assertEquals(new BigDecimal("1099.99"), store.get(1L).orElseThrow().getPrice());
+        assertEquals("Product 4999", store.get(4999L).orElseThrow().getName());
+        assertEquals("Category 1", store.get(4999L).orElseThrow().getCategory());
+        assertFalse(store.get(4998L).isPresent());
+        assertEquals(3 + 2495, store.size());
+    }
+
+    @Test
+    void index_CompactsOverwrittenText() {
+        // Arrange
+        String longText = "x".repeat(1024);
+        long before = store.offHeapBytes();
+
+        // Act
+        for (int i = 0; i < 4000; i++) {
+            Product product = product(1L, "Diamond Ring " + i, "999.99", "Rings", 10);
+            product.setDescription(longText + i);
+            store.index(product);
+        }
+
+        // Assert
+        assertEquals(longText + 3999, store.get(1L).orElseThrow().getDescription());
+        assertEquals("Pearl Necklace", store.get(3L).orElseThrow().getName());
+        assertTrue(store.offHeapBytes() - before < 4 * 1024 * 1024);
+    }
+
+    @Test
+    void index_IgnoresOlderVersion() {
+        // Arrange
+        Product newer = product(2L, "Nhẫn Vàng v9", "1600.00", "Rings", 2);
+        newer.setVersion(9L);
+        store.index(newer);
+        Product older = product(2L, "Nhẫn Vàng v8", "1550.00", "Rings", 5);
+        older.setVersion(8L);
+
+        // Act
+        store.index(older);
+
+        // Assert
+        Product result = store.get(2L).orElseThrow();
+        assertEquals("Nhẫn Vàng v9", result.getName());
+        assertEquals(2, result.getStockQuantity());
+        assertEquals(9L, result.getVersion());
+    }
+
+    @Test
+    void clear_NotReadyUntilLoadCompleted() {
+        // Act
+        store.clear();
+
+        // Assert
+        assertFalse(store.isReady());
+        assertFalse(store.get(1L).isPresent());
+    }
+
+    private Product product(Long id, String name, String price, String category, Integer stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("Description of " + name);
+        product.setPrice(new BigDecimal(price));
+        product.setCategory(category);
+        product.setBrand(id == 2L ? "PNJ" : "Luxury Brand");
+        product.setStockQuantity(stock);
+        product.setImageUrl(id + ".jpg");
+        product.setVersion(id == 2L ? 7L : 0L);
+        return product;
+    }
+}
@@ -10,8 +10,8 @@ function Home() {
   useEffect(() => {
     const fetchFeaturedProducts = async () => {
       try {
-        const products = await productService.getAllProducts();
-        setFeaturedProducts(products.slice(0, 4)); // Show first 4 products as featured
+        const page = await productService.getProducts({ size: 4 });
+        setFeaturedProducts(page.content); // Show first 4 products as featured
         setLoading(false);
       } catch (error) {
         console.error('Error fetching featured products:', error);
@@ -1,9 +1,16 @@
 import api from './api';
 
 export const productService = {
+  // GET /products is cursor-paged: { content, size, nextCursor, hasNext }
   getAllProducts: async () => {
-    const response = await api.get('/products');
-    return response.data;
+    const products = [];
+    let cursor = null;
+    do {
+      const page = await productService.getProducts({ cursor });
+      products.push(...page.content);
+      cursor = page.hasNext ? page.nextCursor : null;
+    } while (cursor);
+    return products;
   },
 
   getProductById: async (id) => {
@@ -29,8 +36,12 @@ export const productService = {
     return response.data;
   },
 
-  getProducts: async () => {
-    const response = await api.get('/products');
+  getProducts: async ({ cursor, size } = {}) => {
+    const params = new URLSearchParams();
+    if (cursor) params.append('cursor', cursor);
+    if (size) params.append('size', size);
+
+    const response = await api.get(`/products?${params.toString()}`);
     return response.data;
   }
 }; 
\ No newline at end of file